@@ -0,0 +1,36 @@
+package com.uniquindio.api.crud.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Control de admisión opcional ({@code usuarios.admision.enabled}), ver {@link AdmisionFiltro}. El filtro
+ * va primero en la cadena para que las solicitudes rechazadas no hagan ningún otro trabajo.
+ */
+@Configuration
+@ConditionalOnProperty(name = "usuarios.admision.enabled", havingValue = "true")
+@EnableConfigurationProperties(AdmisionProperties.class)
+public class AdmisionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmisionConfig.class);
+
+    @Bean
+    public FilterRegistrationBean<AdmisionFiltro> admisionFiltro(AdmisionProperties properties,
+                                                                  ObjectMapper objectMapper,
+                                                                  MeterRegistry registry) {
+        FilterRegistrationBean<AdmisionFiltro> registro =
+                new FilterRegistrationBean<>(new AdmisionFiltro(properties, objectMapper, registry));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        logger.info("Control de admisión activo: lecturas {}/s por cliente, escrituras {}/s por cliente",
+                properties.lecturas().porSegundo(), properties.escrituras().porSegundo());
+        return registro;
+    }
+}
@@ -0,0 +1,222 @@
+package com.uniquindio.api.crud.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uniquindio.api.crud.dto.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Control de admisión de {@code /api/**}, antes de que las solicitudes lleguen al pool de conexiones.
+ * Lecturas (GET, HEAD) y escrituras tienen presupuestos separados, así un pico de escrituras no deja
+ * sin lugar a las lecturas:
+ * <ul>
+ *     <li>un cubo de fichas por cliente: al agotarlo se responde 429 con el {@code Retry-After} que
+ *     falta para la siguiente ficha;</li>
+ *     <li>un {@link LimiteAdaptativo} de solicitudes simultáneas: al alcanzarlo se responde 503 con
+ *     {@code Retry-After: 1}, en vez de esperar una conexión hasta el timeout y terminar en 500.</li>
+ * </ul>
+ * Las descargas asíncronas (exportación) ocupan su lugar hasta terminar, pero su duración no ajusta el
+ * límite; el flujo de cambios (SSE) lo libera apenas se abre. Los rechazos se cuentan en
+ * {@code usuarios.admision.rechazos}.
+ */
+class AdmisionFiltro extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmisionFiltro.class);
+
+    private static final Set<String> METODOS_LECTURA = Set.of("GET", "HEAD");
+
+    private final AdmisionProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Clase lecturas;
+    private final Clase escrituras;
+
+    private final class Clase {
+        final AdmisionProperties.Presupuesto presupuesto;
+        final LimiteAdaptativo limite;
+        final Cache<String, CuboFichas> cubos;
+        final Counter rechazosCliente;
+        final Counter rechazosConcurrencia;
+
+        Clase(String nombre, AdmisionProperties.Presupuesto presupuesto, MeterRegistry registry) {
+            this.presupuesto = presupuesto;
+            this.limite = new LimiteAdaptativo(nombre, presupuesto, registry);
+            this.cubos = Caffeine.newBuilder()
+                    .maximumSize(properties.maxClientes())
+                    .expireAfterAccess(properties.inactividadCliente())
+                    .build();
+            this.rechazosCliente = rechazos(registry, nombre, "cliente");
+            this.rechazosConcurrencia = rechazos(registry, nombre, "concurrencia");
+        }
+    }
+
+    AdmisionFiltro(AdmisionProperties properties, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.lecturas = new Clase("lectura", properties.lecturas(), registry);
+        this.escrituras = new Clase("escritura", properties.escrituras(), registry);
+    }
+
+    private static Counter rechazos(MeterRegistry registry, String clase, String motivo) {
+        return Counter.builder("usuarios.admision.rechazos")
+                .description("Solicitudes rechazadas por el control de admisión")
+                .tag("clase", clase).tag("motivo", motivo).register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getServletPath().startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Clase clase = METODOS_LECTURA.contains(request.getMethod()) ? lecturas : escrituras;
+
+        String cliente = cliente(request);
+        long espera = clase.cubos.get(cliente, c -> new CuboFichas(clase.presupuesto.rafaga(), clase.presupuesto.porSegundo()))
+                .tomar();
+        if (espera > 0) {
+            clase.rechazosCliente.increment();
+            logger.debug("Cliente {} sin fichas para {} {}", cliente, request.getMethod(), request.getRequestURI());
+            rechazar(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(espera) + 1,
+                    "Demasiadas solicitudes, intente nuevamente más tarde");
+            return;
+        }
+        if (!clase.limite.intentar()) {
+            clase.rechazosConcurrencia.increment();
+            logger.debug("Solicitud {} {} rechazada: límite de solicitudes simultáneas alcanzado",
+                    request.getMethod(), request.getRequestURI());
+            rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "El servidor está ocupado, intente nuevamente");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        // El listener se registra al iniciar el modo asíncrono, antes de que el trabajo pueda terminar:
+        // agregado después de doFilter, un trabajo ya completado no lo llamaría y el lugar no se liberaría
+        Liberacion liberacion = new Liberacion(clase.limite);
+        SolicitudAdmitida admitida = new SolicitudAdmitida(request, liberacion);
+        try {
+            filterChain.doFilter(admitida, response);
+        } finally {
+            if (!admitida.asincrona) {
+                clase.limite.liberar(System.nanoTime() - inicio);
+            } else if (esFlujoDeEventos(response)) {
+                // Un flujo SSE puede durar horas casi sin trabajo: no ocupa lugar ni ajusta el límite
+                liberacion.liberar();
+            }
+        }
+    }
+
+    private static boolean esFlujoDeEventos(HttpServletResponse response) {
+        String tipo = response.getContentType();
+        return tipo != null && tipo.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private String cliente(HttpServletRequest request) {
+        String encabezado = properties.encabezadoCliente();
+        if (encabezado != null && !encabezado.isBlank()) {
+            String valor = request.getHeader(encabezado);
+            if (valor != null && !valor.isBlank()) {
+                int coma = valor.indexOf(',');
+                return (coma < 0 ? valor : valor.substring(0, coma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void rechazar(HttpServletResponse response, HttpStatus estado, long reintentarEnSegundos, String mensaje)
+            throws IOException {
+        response.setStatus(estado.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(reintentarEnSegundos));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(estado.value(), mensaje));
+    }
+
+    // Agrega la Liberacion en cuanto la solicitud pasa a modo asíncrono
+    private static final class SolicitudAdmitida extends HttpServletRequestWrapper {
+        private final Liberacion liberacion;
+        private boolean asincrona;
+
+        SolicitudAdmitida(HttpServletRequest request, Liberacion liberacion) {
+            super(request);
+            this.liberacion = liberacion;
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            return registrar(super.startAsync());
+        }
+
+        @Override
+        public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+            return registrar(super.startAsync(request, response));
+        }
+
+        private AsyncContext registrar(AsyncContext contexto) {
+            if (!asincrona) {
+                asincrona = true;
+                contexto.addListener(liberacion);
+            }
+            return contexto;
+        }
+    }
+
+    // Libera el lugar de una solicitud asíncrona una sola vez, termine como termine
+    private static final class Liberacion implements AsyncListener {
+        private final LimiteAdaptativo limite;
+        private final AtomicBoolean liberada = new AtomicBoolean();
+
+        Liberacion(LimiteAdaptativo limite) {
+            this.limite = limite;
+        }
+
+        private void liberar() {
+            if (liberada.compareAndSet(false, true)) {
+                limite.liberar(-1);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
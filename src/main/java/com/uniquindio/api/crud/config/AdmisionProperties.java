@@ -0,0 +1,55 @@
+package com.uniquindio.api.crud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Control de admisión de {@code /api/**} ({@code usuarios.admision.*}), ver {@link AdmisionFiltro}.
+ *
+ * @param lecturas           presupuesto de GET y HEAD
+ * @param escrituras         presupuesto del resto de métodos
+ * @param encabezadoCliente  encabezado que identifica al cliente (p. ej. X-Forwarded-For detrás de un
+ *                           proxy de confianza); vacío para usar la dirección remota
+ * @param maxClientes        clientes con cubo de fichas en memoria; los menos recientes se descartan
+ * @param inactividadCliente tiempo sin solicitudes tras el cual se descarta el cubo de un cliente
+ */
+@ConfigurationProperties(prefix = "usuarios.admision")
+public record AdmisionProperties(Presupuesto lecturas,
+                                 Presupuesto escrituras,
+                                 String encabezadoCliente,
+                                 Long maxClientes,
+                                 Duration inactividadCliente) {
+
+    /**
+     * @param porSegundo     fichas que recupera por segundo el cubo de cada cliente
+     * @param rafaga         fichas máximas del cubo de cada cliente
+     * @param limiteInicial  solicitudes simultáneas admitidas al arrancar
+     * @param limiteMinimo   solicitudes simultáneas admitidas aunque la latencia crezca
+     * @param limiteMaximo   tope del límite adaptativo de solicitudes simultáneas
+     * @param tolerancia     cuánto puede crecer la latencia sobre la habitual antes de reducir el límite
+     */
+    public record Presupuesto(Double porSegundo,
+                              Integer rafaga,
+                              Integer limiteInicial,
+                              Integer limiteMinimo,
+                              Integer limiteMaximo,
+                              Double tolerancia) {
+
+        public Presupuesto {
+            porSegundo = porSegundo != null ? porSegundo : 50.0;
+            rafaga = rafaga != null ? rafaga : 100;
+            limiteInicial = limiteInicial != null ? limiteInicial : 10;
+            limiteMinimo = limiteMinimo != null ? limiteMinimo : 2;
+            limiteMaximo = limiteMaximo != null ? limiteMaximo : 100;
+            tolerancia = tolerancia != null ? tolerancia : 1.5;
+        }
+    }
+
+    public AdmisionProperties {
+        lecturas = lecturas != null ? lecturas : new Presupuesto(null, null, null, null, null, null);
+        escrituras = escrituras != null ? escrituras : new Presupuesto(null, null, null, null, null, null);
+        maxClientes = maxClientes != null ? maxClientes : 100_000L;
+        inactividadCliente = inactividadCliente != null ? inactividadCliente : Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,21 @@
+package com.uniquindio.api.crud.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Habilita la caché de lectura de usuarios. El tamaño máximo y el TTL se configuran con
+ * {@code spring.cache.caffeine.spec} en application.properties.
+ * <p>
+ * La caché es el interceptor más externo: un acierto no espera permiso de
+ * {@code LimiteConcurrenciaBaseDatos} ni abre transacción, y las invalidaciones de las escrituras
+ * ocurren después de que se confirma su transacción.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    /** Caché de {@code UsuarioVersionadoDTO} (usuario y versión de la fila) por ID. */
+    public static final String USUARIOS = "usuarios";
+}
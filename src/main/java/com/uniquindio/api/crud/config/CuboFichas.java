@@ -0,0 +1,41 @@
+package com.uniquindio.api.crud.config;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Cubo de fichas de un cliente: cada solicitud gasta una ficha y el cubo se rellena a ritmo
+ * constante hasta su capacidad, que es la ráfaga permitida.
+ */
+class CuboFichas {
+
+    private final double capacidad;
+    private final double fichasPorNano;
+    private final LongSupplier reloj;
+    private double fichas;
+    private long ultimaRecarga;
+
+    CuboFichas(int capacidad, double porSegundo) {
+        this(capacidad, porSegundo, System::nanoTime);
+    }
+
+    // El reloj (en nanosegundos) se reemplaza en las pruebas
+    CuboFichas(int capacidad, double porSegundo, LongSupplier reloj) {
+        this.capacidad = capacidad;
+        this.fichasPorNano = porSegundo / 1_000_000_000d;
+        this.reloj = reloj;
+        this.fichas = capacidad;
+        this.ultimaRecarga = reloj.getAsLong();
+    }
+
+    /** Gasta una ficha; devuelve 0 si la había o los nanosegundos que faltan para la siguiente. */
+    synchronized long tomar() {
+        long ahora = reloj.getAsLong();
+        fichas = Math.min(capacidad, fichas + (ahora - ultimaRecarga) * fichasPorNano);
+        ultimaRecarga = ahora;
+        if (fichas >= 1) {
+            fichas--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - fichas) / fichasPorNano);
+    }
+}
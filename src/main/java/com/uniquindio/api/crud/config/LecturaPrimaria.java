@@ -0,0 +1,28 @@
+package com.uniquindio.api.crud.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Lecturas que van al primario aunque haya réplicas: las que llenan la caché de usuarios o
+ * estructuras en memoria (conteos, índice, filtro de existencia). Esos datos duran más que el
+ * retraso tolerado de una réplica ({@code usuarios.replicas.retraso-maximo}), y una réplica atrasada
+ * los dejaría desactualizados hasta que expiren o se reconstruyan. Sin réplicas no cambia nada.
+ */
+public final class LecturaPrimaria {
+
+    private LecturaPrimaria() {
+    }
+
+    public static <T> T ejecutar(Supplier<T> lectura) {
+        // Puede llamarse dentro de un alcance que ya lee del primario (LecturaPropiaFiltro): no se libera
+        if (ReplicasDataSource.usandoPrimario()) {
+            return lectura.get();
+        }
+        ReplicasDataSource.usarPrimario();
+        try {
+            return lectura.get();
+        } finally {
+            ReplicasDataSource.liberarPrimario();
+        }
+    }
+}
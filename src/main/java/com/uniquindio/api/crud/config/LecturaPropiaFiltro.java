@@ -0,0 +1,74 @@
+package com.uniquindio.api.crud.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Lectura de las propias escrituras con réplicas: toda solicitud que escribe (POST, PUT, PATCH,
+ * DELETE) lee del primario y deja la cookie {@value #COOKIE} con el instante hasta el cual las
+ * lecturas de ese cliente siguen yendo al primario, para que no vea una réplica sin su cambio.
+ * <p>
+ * La cookie se envía antes de procesar la escritura, aunque luego falle: a lo sumo unas lecturas
+ * de más van al primario.
+ */
+class LecturaPropiaFiltro extends OncePerRequestFilter {
+
+    static final String COOKIE = "usuarios-primario";
+
+    private static final Set<String> METODOS_LECTURA = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration ventana;
+
+    LecturaPropiaFiltro(Duration ventana) {
+        this.ventana = ventana;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long ahora = System.currentTimeMillis();
+        boolean escritura = !METODOS_LECTURA.contains(request.getMethod());
+        if (escritura) {
+            String ruta = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, Long.toString(ahora + ventana.toMillis()))
+                    .path(ruta).maxAge(ventana).httpOnly(true).sameSite("Lax").build().toString());
+        }
+
+        if (!escritura && primarioHasta(request) <= ahora) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReplicasDataSource.usarPrimario();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicasDataSource.liberarPrimario();
+        }
+    }
+
+    private static long primarioHasta(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
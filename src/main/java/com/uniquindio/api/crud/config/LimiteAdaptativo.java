@@ -0,0 +1,109 @@
+package com.uniquindio.api.crud.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite de solicitudes simultáneas que se ajusta con la latencia observada (por gradiente): se
+ * compara la latencia reciente con la habitual y, si crece más de lo tolerado, el límite baja en la
+ * misma proporción; si no, sube de a poco. Así el límite sigue a la capacidad real de la base de datos
+ * y las solicitudes sobrantes se rechazan enseguida en vez de esperar una conexión del pool.
+ * <p>
+ * El límite solo se ajusta cuando se usa al menos la mitad: con poca carga la latencia no dice nada
+ * sobre la capacidad. Publica {@code usuarios.admision.limite} y {@code usuarios.admision.en.curso}.
+ */
+class LimiteAdaptativo {
+
+    private static final Logger logger = LoggerFactory.getLogger(LimiteAdaptativo.class);
+
+    // Pesos de las medias móviles exponenciales: unas 10 solicitudes para la latencia reciente y
+    // unas 500 para la habitual
+    private static final double PESO_RECIENTE = 0.1;
+    private static final double PESO_HABITUAL = 1.0 / 500;
+    // Fracción del límite calculado que se aplica en cada ajuste
+    private static final double SUAVIZADO = 0.2;
+
+    private final String clase;
+    private final int minimo;
+    private final int maximo;
+    private final double tolerancia;
+    private final AtomicInteger enCurso = new AtomicInteger();
+
+    private volatile int limite;
+    // Protegidos por this
+    private double estimado;
+    private double latenciaReciente;
+    private double latenciaHabitual;
+
+    LimiteAdaptativo(String clase, AdmisionProperties.Presupuesto presupuesto, MeterRegistry registry) {
+        this.clase = clase;
+        this.minimo = presupuesto.limiteMinimo();
+        this.maximo = presupuesto.limiteMaximo();
+        this.tolerancia = presupuesto.tolerancia();
+        this.estimado = Math.clamp(presupuesto.limiteInicial(), minimo, maximo);
+        this.limite = (int) estimado;
+
+        Gauge.builder("usuarios.admision.limite", this, l -> l.limite)
+                .description("Solicitudes simultáneas admitidas").tag("clase", clase).register(registry);
+        Gauge.builder("usuarios.admision.en.curso", enCurso, AtomicInteger::get)
+                .description("Solicitudes admitidas en curso").tag("clase", clase).register(registry);
+    }
+
+    /** Ocupa un lugar si hay; si no, la solicitud debe rechazarse. */
+    boolean intentar() {
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= limite) {
+                return false;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el lugar ocupado con {@link #intentar()}.
+     *
+     * @param latenciaNanos duración de la solicitud, o un valor negativo si no debe usarse para ajustar
+     *                      el límite (p. ej. descargas largas)
+     */
+    void liberar(long latenciaNanos) {
+        int enCursoAlTerminar = enCurso.getAndDecrement();
+        if (latenciaNanos >= 0) {
+            ajustar(latenciaNanos, enCursoAlTerminar);
+        }
+    }
+
+    private synchronized void ajustar(long latenciaNanos, int enCursoAlTerminar) {
+        if (latenciaHabitual == 0) {
+            latenciaReciente = latenciaNanos;
+            latenciaHabitual = latenciaNanos;
+            return;
+        }
+        latenciaReciente += (latenciaNanos - latenciaReciente) * PESO_RECIENTE;
+        latenciaHabitual += (latenciaNanos - latenciaHabitual) * PESO_HABITUAL;
+        // Si la latencia baja mucho (p. ej. tras un pico largo), la habitual la sigue más rápido
+        if (latenciaHabitual > 2 * latenciaReciente) {
+            latenciaHabitual *= 0.95;
+        }
+        if (enCursoAlTerminar < estimado / 2) {
+            return;
+        }
+
+        double gradiente = Math.clamp(tolerancia * latenciaHabitual / latenciaReciente, 0.5, 1.0);
+        double nuevo = estimado * gradiente + Math.sqrt(estimado);
+        estimado = Math.clamp(estimado * (1 - SUAVIZADO) + nuevo * SUAVIZADO, minimo, maximo);
+
+        int anterior = limite;
+        limite = (int) estimado;
+        if (limite < anterior) {
+            logger.debug("Límite de {} reducido a {} (latencia reciente {} ms, habitual {} ms)", clase, limite,
+                    Math.round(latenciaReciente / 1_000_000), Math.round(latenciaHabitual / 1_000_000));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.uniquindio.api.crud.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Muestreo de logs por endpoint. El resto del pipeline (appender asíncrono, formato JSON y el
+ * {@link MuestreoLogsTurboFilter}) está en logback-spring.xml.
+ */
+@Configuration
+@EnableConfigurationProperties(MuestreoLogsProperties.class)
+public class LogsConfig implements WebMvcConfigurer {
+
+    private final MuestreoLogsProperties muestreoLogsProperties;
+
+    public LogsConfig(MuestreoLogsProperties muestreoLogsProperties) {
+        this.muestreoLogsProperties = muestreoLogsProperties;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new MuestreoLogsInterceptor(muestreoLogsProperties)).addPathPatterns("/api/**");
+    }
+}
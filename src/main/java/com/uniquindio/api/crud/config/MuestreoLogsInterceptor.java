@@ -0,0 +1,54 @@
+package com.uniquindio.api.crud.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decide al inicio de cada solicitud si sus logs entran en la muestra, con la tasa configurada para
+ * el endpoint, y deja en el MDC el endpoint y la decisión. Se decide por solicitud, no por línea,
+ * para que una solicitud muestreada conserve todos sus logs.
+ */
+public class MuestreoLogsInterceptor implements AsyncHandlerInterceptor {
+
+    /** Clave del MDC con el endpoint (método del controlador) que atiende la solicitud. */
+    public static final String MDC_ENDPOINT = "endpoint";
+
+    private final MuestreoLogsProperties properties;
+
+    public MuestreoLogsInterceptor(MuestreoLogsProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            String endpoint = handlerMethod.getMethod().getName();
+            boolean muestreada = ThreadLocalRandom.current().nextDouble() < properties.tasa(endpoint);
+            MDC.put(MDC_ENDPOINT, endpoint);
+            MDC.put(MuestreoLogsTurboFilter.MDC_MUESTREO,
+                    muestreada ? MuestreoLogsTurboFilter.MUESTREADA : MuestreoLogsTurboFilter.DESCARTADA);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        limpiar();
+    }
+
+    // Las respuestas asíncronas (exportación) liberan el hilo sin pasar por afterCompletion
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        limpiar();
+    }
+
+    private static void limpiar() {
+        MDC.remove(MDC_ENDPOINT);
+        MDC.remove(MuestreoLogsTurboFilter.MDC_MUESTREO);
+    }
+}
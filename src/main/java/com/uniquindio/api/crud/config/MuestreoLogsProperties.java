@@ -0,0 +1,24 @@
+package com.uniquindio.api.crud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Fracción de solicitudes cuyos logs INFO/DEBUG se conservan ({@code usuarios.logs.muestreo.*}).
+ *
+ * @param porDefecto tasa de los endpoints sin tasa propia, entre 0 y 1
+ * @param endpoints  tasa por endpoint, con el nombre del método del controlador como clave
+ */
+@ConfigurationProperties(prefix = "usuarios.logs.muestreo")
+public record MuestreoLogsProperties(Double porDefecto, Map<String, Double> endpoints) {
+
+    public MuestreoLogsProperties {
+        porDefecto = porDefecto != null ? porDefecto : 1.0;
+        endpoints = endpoints != null ? Map.copyOf(endpoints) : Map.of();
+    }
+
+    public double tasa(String endpoint) {
+        return endpoints.getOrDefault(endpoint, porDefecto);
+    }
+}
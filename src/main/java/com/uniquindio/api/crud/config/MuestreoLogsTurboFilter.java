@@ -0,0 +1,38 @@
+package com.uniquindio.api.crud.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Descarta los logs INFO y DEBUG de la aplicación durante las solicitudes que no quedaron en la
+ * muestra ({@link MuestreoLogsInterceptor} decide por solicitud y lo anota en el MDC). WARN y ERROR
+ * siempre pasan, igual que los loggers fuera de {@code paquete} (por ejemplo {@code org.hibernate.SQL_SLOW}).
+ * <p>
+ * Al ser un TurboFilter, el descarte ocurre antes de construir el evento y formatear el mensaje.
+ * Se declara en logback-spring.xml.
+ */
+public class MuestreoLogsTurboFilter extends TurboFilter {
+
+    /** Clave del MDC con la decisión de muestreo de la solicitud actual. */
+    public static final String MDC_MUESTREO = "muestreo";
+    public static final String MUESTREADA = "si";
+    public static final String DESCARTADA = "no";
+
+    private String paquete = "com.uniquindio";
+
+    public void setPaquete(String paquete) {
+        this.paquete = paquete;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.WARN) || !logger.getName().startsWith(paquete)) {
+            return FilterReply.NEUTRAL;
+        }
+        return DESCARTADA.equals(MDC.get(MDC_MUESTREO)) ? FilterReply.DENY : FilterReply.NEUTRAL;
+    }
+}
@@ -0,0 +1,99 @@
+package com.uniquindio.api.crud.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniquindio.api.crud.controller.UsuarioReactivoHandler;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Camino de lectura reactivo, opcional ({@code usuarios.reactivo.enabled}). La aplicación sigue
+ * siendo Spring MVC sobre Tomcat; este camino levanta aparte un servidor Reactor Netty en
+ * {@code usuarios.reactivo.puerto} con su propio pool R2DBC, para lecturas de alto volumen.
+ * <p>
+ * Las autoconfiguraciones R2DBC de Spring Boot están excluidas en application.properties para que
+ * no reemplacen el gestor de transacciones JPA.
+ */
+@Configuration
+@ConditionalOnProperty(name = "usuarios.reactivo.enabled", havingValue = "true")
+public class ReactivoConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactivoConfig.class);
+
+    // El pool no se publica como bean: un ConnectionFactory en el contexto desactiva la
+    // autoconfiguración del DataSource JDBC que usa JPA.
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient reactivoDatabaseClient(@Value("${usuarios.reactivo.url}") String url,
+                                                 @Value("${usuarios.reactivo.username}") String username,
+                                                 @Value("${usuarios.reactivo.password}") String password,
+                                                 @Value("${usuarios.reactivo.pool.max-size:10}") int maxSize) {
+        ConnectionFactoryOptions opciones = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(opciones))
+                .initialSize(0)
+                .maxSize(maxSize)
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void cerrarPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer servidorReactivo(UsuarioReactivoHandler handler,
+                                             ObjectMapper objectMapper,
+                                             @Value("${server.servlet.context-path:}") String contextPath,
+                                             @Value("${usuarios.reactivo.puerto:8081}") int puerto,
+                                             @Value("${server.compression.min-response-size:2KB}") DataSize compresionMinima) {
+        RouterFunction<ServerResponse> rutas = RouterFunctions.route()
+                .path(contextPath + "/api/usuarios", builder -> builder
+                        .GET("", handler::listar)
+                        .GET("/{id}", handler::obtener))
+                .build();
+
+        HandlerStrategies estrategias = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(rutas, estrategias);
+
+        DisposableServer servidor = HttpServer.create()
+                .port(puerto)
+                // Mismo umbral de gzip que Tomcat (server.compression.min-response-size)
+                .compress((int) compresionMinima.toBytes())
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        logger.info("Lecturas reactivas de usuarios disponibles en el puerto {}", servidor.port());
+        return servidor;
+    }
+}
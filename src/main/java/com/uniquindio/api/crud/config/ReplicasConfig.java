@@ -0,0 +1,99 @@
+package com.uniquindio.api.crud.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplicas de lectura, opcionales ({@code usuarios.replicas.enabled}). Reemplaza el DataSource de
+ * Spring Boot por un {@link LazyConnectionDataSourceProxy} sobre el primario (configurado con
+ * {@code spring.datasource.*}): la conexión real se pide en la primera sentencia, cuando ya se sabe
+ * si la transacción es de solo lectura, y las de solo lectura ({@code @Transactional(readOnly = true)},
+ * incluidos los métodos de lectura de los repositorios) se piden a {@link ReplicasDataSource}.
+ * <p>
+ * Cada réplica tiene su propio pool Hikari ({@code usuarios.replicas.nodos[n].*}), con las métricas
+ * {@code hikaricp.*} bajo {@code pool=replica-n}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "usuarios.replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicasProperties.class)
+public class ReplicasConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicasConfig.class);
+
+    // Los pools no se publican como beans: con más de un DataSource en el contexto JPA no sabría cuál usar
+    private HikariDataSource primario;
+    private ReplicasDataSource replicas;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties,
+                                 ReplicasProperties replicasProperties,
+                                 Environment environment,
+                                 MeterRegistry registry) {
+        primario = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+        primario.setPoolName("primario");
+
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (ReplicasProperties.Nodo nodo : replicasProperties.nodos()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (pools.size() + 1));
+            pool.setJdbcUrl(nodo.url());
+            pool.setUsername(nodo.username());
+            pool.setPassword(nodo.password());
+            pool.setMaximumPoolSize(nodo.poolMaximo());
+            pool.setReadOnly(true);
+            pool.setConnectionTimeout(replicasProperties.esperaConexion().toMillis());
+            pool.setMetricRegistry(registry);
+            pools.add(pool);
+        }
+        replicas = new ReplicasDataSource(primario, pools, replicasProperties.retrasoMaximo().toMillis(),
+                replicasProperties.consultaRetraso(), registry);
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primario);
+        dataSource.setReadOnlyDataSource(replicas);
+        logger.info("Lecturas repartidas en {} réplicas, retraso máximo tolerado {} ms", pools.size(),
+                replicasProperties.retrasoMaximo().toMillis());
+        return dataSource;
+    }
+
+    @Bean
+    public LecturaPropiaFiltro lecturaPropiaFiltro(ReplicasProperties replicasProperties) {
+        return new LecturaPropiaFiltro(replicasProperties.lecturaPropia());
+    }
+
+    @Scheduled(fixedDelayString = "${usuarios.replicas.verificacion:PT5S}")
+    public void verificarReplicas() {
+        if (replicas != null) {
+            replicas.verificar();
+        }
+    }
+
+    @PreDestroy
+    public void cerrarPools() {
+        if (replicas != null) {
+            replicas.cerrar();
+        }
+        if (primario != null) {
+            primario.close();
+        }
+    }
+}
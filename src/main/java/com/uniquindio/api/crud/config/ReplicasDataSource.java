@@ -0,0 +1,176 @@
+package com.uniquindio.api.crud.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conexiones de solo lectura: se reparten por turnos entre las réplicas disponibles, y van al
+ * primario si ninguna lo está o si el hilo pidió leer sus propias escrituras
+ * ({@link #usarPrimario()}) o va a guardar lo leído en memoria ({@link LecturaPrimaria}). Una réplica deja de estar disponible si su retraso supera el máximo
+ * tolerado o si no entrega conexiones, y vuelve en la siguiente verificación correcta.
+ * <p>
+ * Publica las conexiones entregadas por destino en {@code usuarios.replicas.conexiones} y el
+ * retraso medido de cada réplica en {@code usuarios.replicas.retraso}.
+ */
+class ReplicasDataSource extends AbstractDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicasDataSource.class);
+
+    private static final ThreadLocal<Boolean> soloPrimario = new ThreadLocal<>();
+
+    private final DataSource primario;
+    private final List<Replica> replicas;
+    private final long retrasoMaximoMs;
+    private final String consultaRetraso;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final Counter conexionesPrimario;
+
+    private static final class Replica {
+        final HikariDataSource dataSource;
+        final Counter conexiones;
+        volatile long retrasoMs;
+        volatile boolean disponible = true;
+
+        Replica(HikariDataSource dataSource, Counter conexiones) {
+            this.dataSource = dataSource;
+            this.conexiones = conexiones;
+        }
+
+        String nombre() {
+            return dataSource.getPoolName();
+        }
+    }
+
+    ReplicasDataSource(DataSource primario, List<HikariDataSource> replicas, long retrasoMaximoMs,
+                       String consultaRetraso, MeterRegistry registry) {
+        this.primario = primario;
+        this.retrasoMaximoMs = retrasoMaximoMs;
+        this.consultaRetraso = consultaRetraso;
+        this.conexionesPrimario = conexiones(registry, "primario");
+        this.replicas = replicas.stream()
+                .map(dataSource -> new Replica(dataSource, conexiones(registry, dataSource.getPoolName())))
+                .toList();
+        for (Replica replica : this.replicas) {
+            Gauge.builder("usuarios.replicas.retraso", replica, r -> r.retrasoMs)
+                    .description("Retraso de replicación medido").baseUnit("milliseconds")
+                    .tag("replica", replica.nombre()).register(registry);
+        }
+    }
+
+    private static Counter conexiones(MeterRegistry registry, String destino) {
+        return Counter.builder("usuarios.replicas.conexiones")
+                .description("Conexiones de solo lectura entregadas por destino")
+                .tag("destino", destino).register(registry);
+    }
+
+    /** Las lecturas de este hilo van al primario hasta {@link #liberarPrimario()}. */
+    static void usarPrimario() {
+        soloPrimario.set(Boolean.TRUE);
+    }
+
+    static boolean usandoPrimario() {
+        return soloPrimario.get() != null;
+    }
+
+    static void liberarPrimario() {
+        soloPrimario.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (soloPrimario.get() == null && !replicas.isEmpty()) {
+            int inicio = Math.floorMod(turno.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((inicio + i) % replicas.size());
+                if (!replica.disponible) {
+                    continue;
+                }
+                try {
+                    Connection conexion = replica.dataSource.getConnection();
+                    replica.conexiones.increment();
+                    return conexion;
+                } catch (SQLException e) {
+                    logger.warn("Réplica {} sin conexiones, se retira hasta la próxima verificación: {}",
+                            replica.nombre(), e.getMessage());
+                    replica.disponible = false;
+                }
+            }
+        }
+        conexionesPrimario.increment();
+        return primario.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    /** Mide el retraso de cada réplica y decide si sigue recibiendo lecturas. */
+    void verificar() {
+        for (Replica replica : replicas) {
+            long retraso;
+            try (Connection conexion = replica.dataSource.getConnection()) {
+                retraso = medirRetraso(conexion);
+            } catch (SQLException e) {
+                logger.debug("No se pudo verificar la réplica {}: {}", replica.nombre(), e.getMessage());
+                retraso = -1;
+            }
+            boolean disponible = retraso >= 0 && retraso <= retrasoMaximoMs;
+            if (disponible != replica.disponible) {
+                if (disponible) {
+                    logger.info("Réplica {} disponible, retraso de {} ms", replica.nombre(), retraso);
+                } else {
+                    logger.warn("Réplica {} retirada de las lecturas, retraso de {} ms (máximo {} ms)",
+                            replica.nombre(), retraso, retrasoMaximoMs);
+                }
+            }
+            replica.retrasoMs = retraso;
+            replica.disponible = disponible;
+        }
+    }
+
+    // Retraso en milisegundos; -1 si la replicación está detenida (NULL).
+    // Sin filas, el servidor no replica de nadie y no tiene retraso
+    private long medirRetraso(Connection conexion) throws SQLException {
+        if (consultaRetraso == null || consultaRetraso.isBlank()) {
+            return 0;
+        }
+        try (Statement statement = conexion.createStatement();
+             ResultSet resultado = statement.executeQuery(consultaRetraso)) {
+            if (!resultado.next()) {
+                return 0;
+            }
+            Object segundos = resultado.getObject(columnaRetraso(resultado));
+            if (segundos == null) {
+                return -1;
+            }
+            double valor = segundos instanceof Number numero ? numero.doubleValue() : Double.parseDouble(segundos.toString());
+            return Math.round(valor * 1000);
+        }
+    }
+
+    private static int columnaRetraso(ResultSet resultado) {
+        try {
+            return resultado.findColumn("Seconds_Behind_Source");
+        } catch (SQLException e) {
+            return 1;
+        }
+    }
+
+    void cerrar() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+}
@@ -0,0 +1,44 @@
+package com.uniquindio.api.crud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Réplicas de lectura ({@code usuarios.replicas.*}), ver {@link ReplicasConfig}.
+ *
+ * @param nodos           réplicas, cada una con su propio pool de conexiones
+ * @param retrasoMaximo   retraso de replicación tolerado; una réplica más atrasada deja de recibir lecturas
+ * @param consultaRetraso SQL que devuelve el retraso en segundos (columna Seconds_Behind_Source o la
+ *                        primera); vacío para no medirlo y solo comprobar la conexión
+ * @param verificacion    cada cuánto se mide el retraso de las réplicas
+ * @param lecturaPropia   tiempo durante el cual las lecturas de un cliente van al primario tras una escritura suya
+ * @param esperaConexion  espera máxima por una conexión de réplica antes de leer del primario
+ */
+@ConfigurationProperties(prefix = "usuarios.replicas")
+public record ReplicasProperties(List<Nodo> nodos,
+                                 Duration retrasoMaximo,
+                                 String consultaRetraso,
+                                 Duration verificacion,
+                                 Duration lecturaPropia,
+                                 Duration esperaConexion) {
+
+    /**
+     * @param poolMaximo conexiones máximas del pool de esta réplica
+     */
+    public record Nodo(String url, String username, String password, Integer poolMaximo) {
+
+        public Nodo {
+            poolMaximo = poolMaximo != null ? poolMaximo : 10;
+        }
+    }
+
+    public ReplicasProperties {
+        nodos = nodos != null ? List.copyOf(nodos) : List.of();
+        retrasoMaximo = retrasoMaximo != null ? retrasoMaximo : Duration.ofSeconds(5);
+        verificacion = verificacion != null ? verificacion : Duration.ofSeconds(5);
+        lecturaPropia = lecturaPropia != null ? lecturaPropia : Duration.ofSeconds(5);
+        esperaConexion = esperaConexion != null ? esperaConexion : Duration.ofSeconds(1);
+    }
+}
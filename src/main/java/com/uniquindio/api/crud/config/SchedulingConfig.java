@@ -0,0 +1,12 @@
+package com.uniquindio.api.crud.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas periódicas ({@code @Scheduled}), como la reconciliación de los conteos de usuarios.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
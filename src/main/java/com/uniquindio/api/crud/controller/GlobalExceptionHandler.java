@@ -1,17 +1,26 @@
 package com.uniquindio.api.crud.controller;
 
 
+import com.uniquindio.api.crud.dto.ErrorResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.DisconnectedClientHelper;
+
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -20,4 +29,21 @@ public class GlobalExceptionHandler {
         }
         return ResponseEntity.badRequest().body(errors);
     }
+
+    // Para los endpoints que no pueden devolver ErrorResponse en su propio tipo de respuesta (p. ej. exportación)
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorResponse> handleResponseStatusException(ResponseStatusException ex) {
+        return ResponseEntity.status(ex.getStatusCode())
+                .body(new ErrorResponse(ex.getStatusCode().value(), ex.getReason()));
+    }
+
+    // Un cliente que cerró la conexión (p. ej. un suscriptor del flujo de cambios): no hay a quién responder.
+    // Desde Spring Framework 6.1.15 el error de escritura de un SseEmitter vuelve como despacho asíncrono
+    @ExceptionHandler(IOException.class)
+    public void handleIOException(IOException ex) throws IOException {
+        if (!DisconnectedClientHelper.isClientDisconnectedException(ex)) {
+            throw ex;
+        }
+        logger.debug("Cliente desconectado: {}", ex.getMessage());
+    }
 }
@@ -1,9 +1,21 @@
 package com.uniquindio.api.crud.controller;
 
 import com.uniquindio.api.crud.dto.ErrorResponse;
+import com.uniquindio.api.crud.dto.UsuarioBatchResponseDTO;
+import com.uniquindio.api.crud.dto.UsuarioClaveDTO;
+import com.uniquindio.api.crud.dto.UsuarioConteosResponseDTO;
+import com.uniquindio.api.crud.dto.UsuarioCursorPageDTO;
 import com.uniquindio.api.crud.dto.UsuarioDTO;
+import com.uniquindio.api.crud.dto.UsuarioEliminacionResponseDTO;
+import com.uniquindio.api.crud.dto.UsuarioImportacionDTO;
+import com.uniquindio.api.crud.dto.UsuarioListadoVersionadoDTO;
+import com.uniquindio.api.crud.dto.UsuarioPaginaDTO;
 import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import com.uniquindio.api.crud.dto.UsuarioVersionadoDTO;
 import com.uniquindio.api.crud.model.RolUsuario;
+import com.uniquindio.api.crud.services.UsuarioCambios;
+import com.uniquindio.api.crud.services.UsuarioIdempotencia;
+import com.uniquindio.api.crud.services.UsuarioImportaciones;
 import com.uniquindio.api.crud.services.UsuarioService;
 import com.uniquindio.api.crud.model.Usuario;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,14 +30,26 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.swing.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -36,18 +60,49 @@ public class UsuarioController {
 
     @Autowired
     private UsuarioService usuarioService;
+    @Autowired
+    private UsuarioIdempotencia usuarioIdempotencia;
+    @Autowired
+    private UsuarioImportaciones usuarioImportaciones;
+    @Autowired
+    private UsuarioCambios usuarioCambios;
     private static final Logger logger = LoggerFactory.getLogger(UsuarioController.class);
 
+    // JSON Merge Patch (RFC 7396)
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
+    // Marca las respuestas repetidas por clave de idempotencia
+    private static final String ENCABEZADO_REPETIDA = "Idempotent-Replayed";
+
+    // Marca las páginas cuyo 'totalElements' sale de los conteos en memoria y no de un count(*)
+    private static final String ENCABEZADO_TOTAL_ESTIMADO = "X-Total-Estimado";
+
+    // Páginas sin los metadatos de Pageable y Sort; CBOR y Smile siempre usan este envoltorio
+    public static final String PAGINA_COMPACTA_JSON = "application/vnd.usuarios.pagina+json";
+    private static final List<MediaType> FORMATOS_COMPACTOS = List.of(
+            MediaType.parseMediaType(PAGINA_COMPACTA_JSON),
+            MediaType.APPLICATION_CBOR,
+            MediaType.parseMediaType("application/x-jackson-smile"));
+
 
     @Operation(
             summary = "Listar todos los usuarios",
             description = "Devuelve una lista de todos los usuarios registrados en el sistema. " +
-                    "Si no hay usuarios, retorna un estado 204 No Content."
+                    "Si no hay usuarios, retorna un estado 204 No Content. " +
+                    "Si se envía el parámetro 'after' (vacío para la primera página) se pagina por cursor: " +
+                    "la respuesta incluye 'nextCursor' para pedir la siguiente página y no calcula el total. " +
+                    "Sin cursor, el total sale de los conteos en memoria y es una estimación (puede no incluir " +
+                    "escrituras recientes de otras instancias); la respuesta lo indica con '" + ENCABEZADO_TOTAL_ESTIMADO + ": true'. " +
+                    "La respuesta lleva un ETag; si se reenvía en 'If-None-Match' y la página no cambió, se responde 304. " +
+                    "Con 'Accept: " + PAGINA_COMPACTA_JSON + "', 'application/cbor' o 'application/x-jackson-smile' " +
+                    "la página llega sin los metadatos de Pageable; las respuestas grandes se comprimen con gzip " +
+                    "si el cliente envía 'Accept-Encoding: gzip'."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de usuarios recuperada exitosamente",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = Usuario.class))),
+            @ApiResponse(responseCode = "304", description = "La página no cambió desde el ETag enviado en 'If-None-Match'"),
             @ApiResponse(responseCode = "204", description = "No hay usuarios registrados",
                     content = @Content(mediaType = "application/json",
                             examples = @ExampleObject(value = "{\"codigo\": 204, \"mensaje\": \"No hay usuarios registrados en el sistema.\"}"))),
@@ -58,16 +113,43 @@ public class UsuarioController {
     @GetMapping
     public ResponseEntity<?> getAllUsuarios(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Cursor opaco de la página anterior ('nextCursor'); vacío para empezar")
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request) {
         logger.info("Solicitud recibida para obtener usuarios paginados - Página: {}, Tamaño: {}", page, size);
         try {
-            Page<UsuarioResponseDTO> usuarios = usuarioService.findAll(PageRequest.of(page, size));
+            // Ordenada por ID para que el ETag de solo ID y versiones describa la misma página
+            Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+            MediaType formato = formatoCompacto(accept);
+            // Sin If-None-Match no hay con qué comparar: el ETag de la respuesta sale de la página cargada
+            if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+                String etag = etagFormato(after != null ? usuarioService.etagCursor(after, size)
+                        : usuarioService.etagPagina(pageable), formato);
+                if (etag != null && request.checkNotModified(etag)) {
+                    logger.debug("Página de usuarios sin cambios, ETag {}", etag);
+                    return null; // 304 Not Modified
+                }
+            }
 
-            if (usuarios.isEmpty()) {
+            if (after != null) {
+                UsuarioListadoVersionadoDTO<UsuarioCursorPageDTO> usuarios = usuarioService.findAfter(after, size);
+                return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT)
+                        .eTag(etagFormato(usuarios.etag(), formato))
+                        .body(usuarios.pagina());
+            }
+            boolean totalEstimado = usuarioService.totalEstimado();
+            UsuarioListadoVersionadoDTO<Page<UsuarioResponseDTO>> usuarios = usuarioService.findAll(pageable);
+
+            if (usuarios.pagina().isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NO_CONTENT)
                         .body(new ErrorResponse(204, "No hay usuarios registrados"));
             }
-            return ResponseEntity.ok(usuarios);
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT)
+                    .eTag(etagFormato(usuarios.etag(), formato))
+                    .header(ENCABEZADO_TOTAL_ESTIMADO, Boolean.toString(totalEstimado))
+                    .body(cuerpoPagina(usuarios.pagina(), formato));
         } catch (ResponseStatusException e) {
             logger.warn("Error en la obtención de usuarios: {}", e.getReason());
             return ResponseEntity.status(e.getStatusCode())
@@ -81,15 +163,246 @@ public class UsuarioController {
 
 
 
+    @Operation(
+            summary = "Exportar todos los usuarios",
+            description = "Transmite la tabla completa en una sola respuesta, una fila por línea, en formato " +
+                    "NDJSON o CSV y ordenada por ID. Si la transmisión se corta, se puede reanudar enviando " +
+                    "en 'desde' el último ID recibido."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportación en curso",
+                    content = {
+                            @Content(mediaType = "application/x-ndjson",
+                                    examples = @ExampleObject(value = """
+                                        {"id":1,"nombre":"Juan Pérez","email":"juan.perez@uniquindio.edu","clase":"Programación I"}
+                                        {"id":2,"nombre":"Ana Gómez","email":"ana.gomez@uniquindio.edu","clase":"Programación II"}
+                                        """)),
+                            @Content(mediaType = "text/csv",
+                                    examples = @ExampleObject(value = """
+                                        id,nombre,email,clase
+                                        1,Juan Pérez,juan.perez@uniquindio.edu,Programación I
+                                        """))
+                    }),
+            @ApiResponse(responseCode = "400", description = "Formato no soportado",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 400,
+                                  "mensaje": "Formato no soportado, use 'ndjson' o 'csv'"
+                                }
+                                """)))
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsuarios(
+            @Parameter(description = "Formato de salida: 'ndjson' o 'csv'", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @Parameter(description = "Exporta solo los usuarios con ID mayor a este valor", example = "0")
+            @RequestParam(defaultValue = "0") long desde) {
+
+        logger.info("Solicitud recibida para exportar usuarios - Formato: {}, Desde ID: {}", formato, desde);
+
+        boolean csv = "csv".equalsIgnoreCase(formato);
+        if (!csv && !"ndjson".equalsIgnoreCase(formato)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato no soportado, use 'ndjson' o 'csv'");
+        }
+
+        StreamingResponseBody cuerpo = salida -> usuarioService.exportar(desde, csv, salida);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=usuarios." + (csv ? "csv" : "ndjson"))
+                .body(cuerpo);
+    }
+
+
+
+    @Operation(
+            summary = "Flujo de cambios de usuarios (Server-Sent Events)",
+            description = "Abre un flujo 'text/event-stream' con cada creación, actualización, modificación parcial y " +
+                    "eliminación de usuarios confirmada desde la conexión. El nombre de cada evento es el tipo de cambio " +
+                    "(CREADO, ACTUALIZADO, MODIFICADO, ELIMINADO, CLASE_ELIMINADA) y su ID permite reconectar: " +
+                    "EventSource reenvía el último en 'Last-Event-ID' (o puede enviarse en el parámetro 'desde') y el " +
+                    "flujo continúa desde ahí. Si esos eventos ya no están disponibles llega un evento REINICIO y el " +
+                    "cliente debe volver a leer la lista completa. Los clientes que quedan demasiado atrás se desconectan; " +
+                    "cada 15 segundos sin cambios se envía un comentario para mantener viva la conexión."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Flujo de eventos abierto",
+                    content = @Content(mediaType = "text/event-stream",
+                            examples = @ExampleObject(value = """
+                                id:1718000000000-42
+                                event:MODIFICADO
+                                data:{"tipo":"MODIFICADO","id":7,"campos":{"email":"nuevo@uniquindio.edu"},"instante":"2025-06-10T12:00:00Z"}
+
+                                id:1718000000000-43
+                                event:ELIMINADO
+                                data:{"tipo":"ELIMINADO","id":9,"instante":"2025-06-10T12:00:01Z"}
+                                """))),
+            @ApiResponse(responseCode = "503", description = "Se alcanzó el máximo de suscriptores",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 503,
+                                  "mensaje": "Se alcanzó el máximo de 100 suscriptores, intente más tarde"
+                                }
+                                """)))
+    })
+    @GetMapping("/cambios")
+    public ResponseEntity<SseEmitter> getCambios(
+            @Parameter(description = "ID del último evento recibido, lo envía EventSource al reconectar")
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoId,
+            @Parameter(description = "Alternativa a 'Last-Event-ID' para clientes que no pueden enviar encabezados",
+                    example = "1718000000000-42")
+            @RequestParam(required = false) String desde) {
+
+        logger.info("Solicitud recibida para el flujo de cambios - Último evento: {}", ultimoId != null ? ultimoId : desde);
+        // El 503 por exceso de suscriptores lo responde GlobalExceptionHandler
+        SseEmitter emitter = usuarioCambios.suscribir(ultimoId != null ? ultimoId : desde);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // Evita que un proxy con buffer (nginx) retenga los eventos
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+
+
+    @Operation(
+            summary = "Buscar usuarios",
+            description = "Devuelve, paginados y ordenados por ID, los usuarios que cumplen todos los filtros enviados: " +
+                    "rol y clase exactos, y nombre que empieza por el texto dado. Todos los filtros son opcionales " +
+                    "y se resuelven con índices de la tabla. Si nada coincide, la página viene vacía."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de resultados",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UsuarioResponseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Rol no válido",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 400,
+                                  "mensaje": "Valor de rol no válido."
+                                }
+                                """)))
+    })
+    @GetMapping("/search")
+    public ResponseEntity<?> searchUsuarios(
+            @Parameter(description = "Rol del usuario", example = "ESTUDIANTE")
+            @RequestParam(required = false) String rol,
+            @Parameter(description = "Clase exacta", example = "Programación I")
+            @RequestParam(required = false) String clase,
+            @Parameter(description = "Prefijo del nombre", example = "Juan")
+            @RequestParam(required = false) String nombre,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        logger.info("Solicitud recibida para buscar usuarios - Rol: {}, Clase: {}, Nombre: {}", rol, clase, nombre);
+
+        try {
+            Page<UsuarioResponseDTO> usuarios = usuarioService.buscar(rol, clase, nombre,
+                    PageRequest.of(page, size, Sort.by("id")));
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(cuerpoPagina(usuarios, formatoCompacto(accept)));
+        } catch (ResponseStatusException e) {
+            logger.warn("Error en la búsqueda de usuarios: {}", e.getReason());
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+
+
+    @Operation(
+            summary = "Autocompletar usuarios por nombre",
+            description = "Sugiere usuarios cuyo nombre contiene el texto escrito, sin distinguir mayúsculas ni tildes, " +
+                    "desde un índice en memoria que se actualiza con cada escritura. Primero aparecen los nombres " +
+                    "que empiezan por el texto. Se puede restringir por rol y clase."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sugerencias, posiblemente vacías",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                [
+                                  { "id": 1, "nombre": "Juan Pérez", "email": "juan.perez@uniquindio.edu", "clase": "Programación I" }
+                                ]
+                                """))),
+            @ApiResponse(responseCode = "400", description = "Límite fuera de rango o rol no válido",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 400,
+                                  "mensaje": "El límite debe estar entre 1 y 50"
+                                }
+                                """)))
+    })
+    @GetMapping("/typeahead")
+    public ResponseEntity<?> typeaheadUsuarios(
+            @Parameter(description = "Texto escrito por el usuario", required = true, example = "per")
+            @RequestParam String q,
+            @Parameter(description = "Rol del usuario", example = "ESTUDIANTE")
+            @RequestParam(required = false) String rol,
+            @Parameter(description = "Clase exacta", example = "Programación I")
+            @RequestParam(required = false) String clase,
+            @Parameter(description = "Máximo de sugerencias", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+
+        logger.debug("Solicitud de autocompletado: {}", q);
+
+        try {
+            return ResponseEntity.ok(usuarioService.sugerir(q, rol, clase, limit));
+        } catch (ResponseStatusException e) {
+            logger.warn("Error en el autocompletado: {}", e.getReason());
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+
+
+    @Operation(
+            summary = "Conteos de usuarios por rol y clase",
+            description = "Devuelve el total de usuarios y la cantidad por cada combinación de rol y clase. " +
+                    "Se responde desde contadores en memoria que se actualizan con cada escritura y se " +
+                    "reconcilian periódicamente con la base de datos."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conteos actuales",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UsuarioConteosResponseDTO.class))),
+            @ApiResponse(responseCode = "503", description = "Los conteos aún se están cargando al arrancar",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 503,
+                                  "mensaje": "Los conteos se están cargando"
+                                }
+                                """)))
+    })
+    @GetMapping("/aggregates")
+    public ResponseEntity<?> getConteos() {
+        try {
+            return ResponseEntity.ok(usuarioService.conteos());
+        } catch (ResponseStatusException e) {
+            logger.warn("Conteos no disponibles: {}", e.getReason());
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+
+
     @Operation(
             summary = "Obtener un usuario por ID",
             description = "Recupera la información de un usuario dado su ID. " +
-                    "Si el ID no es válido o el usuario no existe, devuelve un mensaje de error."
+                    "Si el ID no es válido o el usuario no existe, devuelve un mensaje de error. " +
+                    "La respuesta lleva un ETag con la versión del usuario; si se reenvía en 'If-None-Match' " +
+                    "y el usuario no cambió, se responde 304 sin cuerpo."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Usuario encontrado exitosamente",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = Usuario.class))),
+            @ApiResponse(responseCode = "304", description = "El usuario no cambió desde el ETag enviado en 'If-None-Match'"),
             @ApiResponse(responseCode = "400", description = "ID inválido (no es un número válido)",
                     content = @Content(mediaType = "application/json",
                             examples = @ExampleObject(value = """
@@ -118,15 +431,22 @@ public class UsuarioController {
     @GetMapping("/{id}")
     public ResponseEntity<?> getUsuarioById(
             @Parameter(description = "ID del usuario a consultar", required = true, example = "1")
-            @PathVariable String id) {
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request) {
 
         logger.info("Solicitud recibida para obtener usuario con ID: {}", id);
 
         try {
             Long userId = Long.parseLong(id);
-            UsuarioResponseDTO usuario = usuarioService.findById(userId);
+            // El ETag sale de la misma entrada de la caché que el cuerpo: un acierto no consulta la base de datos
+            UsuarioVersionadoDTO usuario = usuarioService.findById(userId);
+            if (request.checkNotModified(etagFormato(usuario.etag(), formatoCompacto(accept)))) {
+                logger.debug("Usuario con ID {} sin cambios", userId);
+                return null; // 304 Not Modified
+            }
 
-            return ResponseEntity.ok(usuario);  // 200 OK con UsuarioDTO
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(usuario.usuario());  // 200 OK con UsuarioDTO
 
         } catch (NumberFormatException e) {
             logger.warn("ID inválido recibido: {}", id);
@@ -148,7 +468,10 @@ public class UsuarioController {
     @Operation(
             summary = "Crear un nuevo usuario",
             description = "Crea un usuario nuevo en el sistema. " +
-                    "El usuario debe proporcionar información válida y cumplir con las restricciones establecidas."
+                    "El usuario debe proporcionar información válida y cumplir con las restricciones establecidas. " +
+                    "Con el encabezado 'Idempotency-Key' los reintentos con la misma clave y el mismo cuerpo reciben " +
+                    "la respuesta original (con 'Idempotent-Replayed: true') sin volver a la base de datos; si la " +
+                    "primera solicitud sigue en curso, el reintento la espera. Los errores 5xx no se guardan."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Usuario creado exitosamente",
@@ -171,6 +494,14 @@ public class UsuarioController {
                                   "mensaje": "Ya existe un usuario registrado con el correo juan.perez@uniquindio.edu"
                                 }
                                 """))),
+            @ApiResponse(responseCode = "422", description = "La clave de idempotencia ya se usó con un cuerpo distinto",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 422,
+                                  "mensaje": "La clave de idempotencia ya se usó con una solicitud distinta"
+                                }
+                                """))),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor",
                     content = @Content(mediaType = "application/json",
                             examples = @ExampleObject(value = """
@@ -184,10 +515,39 @@ public class UsuarioController {
 
     public ResponseEntity<?> createUsuario(
             @Parameter(description = "Datos del usuario a crear", required = true, schema = @Schema(implementation = UsuarioDTO.class))
-            @Valid @RequestBody UsuarioDTO usuarioDTO) {
+            @Valid @RequestBody UsuarioDTO usuarioDTO,
+            @Parameter(description = "Clave única por intento de creación; los reintentos con la misma clave " +
+                    "reciben la respuesta original", example = "3f1c2b9e-8a4d-4c61-9b7e-2d5f0a6e1c44")
+            @RequestHeader(value = UsuarioIdempotencia.ENCABEZADO, required = false) String claveIdempotencia) {
 
         logger.info("Solicitud recibida para crear un nuevo usuario: {}", usuarioDTO.nombre());
 
+        if (claveIdempotencia == null) {
+            return crearUsuario(usuarioDTO);
+        }
+        try {
+            // Huella calculada antes de guardar: save() reemplaza la clave por su hash
+            UsuarioIdempotencia.Respuesta<ResponseEntity<?>> respuesta = usuarioIdempotencia.ejecutar(
+                    claveIdempotencia, UsuarioIdempotencia.huella(usuarioDTO),
+                    () -> crearUsuario(usuarioDTO),
+                    creada -> !creada.getStatusCode().is5xxServerError());
+            if (!respuesta.repetida()) {
+                return respuesta.valor();
+            }
+            logger.info("Respuesta repetida para la clave de idempotencia {}", claveIdempotencia);
+            ResponseEntity<?> original = respuesta.valor();
+            return ResponseEntity.status(original.getStatusCode())
+                    .headers(original.getHeaders())
+                    .header(ENCABEZADO_REPETIDA, "true")
+                    .body(original.getBody());
+        } catch (ResponseStatusException e) {
+            logger.warn("Clave de idempotencia rechazada: {}", e.getReason());
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+    private ResponseEntity<?> crearUsuario(UsuarioDTO usuarioDTO) {
         try {
             // Convertir UsuarioDTO a Usuario
             Usuario usuario = new Usuario(
@@ -213,6 +573,10 @@ public class UsuarioController {
             } else if (e.getStatusCode() == HttpStatus.BAD_REQUEST) {
                 return ResponseEntity.badRequest()
                         .body(new ErrorResponse(400, e.getReason()));
+            } else if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                logger.warn("Creación de usuario rechazada: {}", e.getReason());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(new ErrorResponse(503, e.getReason()));
             } else {
                 logger.error("Error interno al crear usuario", e);
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -224,6 +588,299 @@ public class UsuarioController {
 
 
 
+    @Operation(
+            summary = "Verificar la clave de un usuario",
+            description = "Comprueba si la clave enviada corresponde a la guardada (hash BCrypt) para el usuario. " +
+                    "La verificación se ejecuta en el pool de hilos dedicado a las claves."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "La clave es correcta"),
+            @ApiResponse(responseCode = "401", description = "La clave no es correcta",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 401,
+                                  "mensaje": "Clave incorrecta"
+                                }
+                                """))),
+            @ApiResponse(responseCode = "404", description = "Usuario no encontrado con el ID especificado",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 404,
+                                  "mensaje": "Usuario no encontrado con ID: 99"
+                                }
+                                """))),
+            @ApiResponse(responseCode = "503", description = "El pool de claves está saturado",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 503,
+                                  "mensaje": "El servicio de claves está saturado, intente más tarde"
+                                }
+                                """)))
+    })
+    @PostMapping("/{id}/verify-password")
+    public ResponseEntity<?> verificarClave(
+            @Parameter(description = "ID del usuario", required = true, example = "1")
+            @PathVariable Long id,
+            @Valid @RequestBody UsuarioClaveDTO claveDTO) {
+
+        logger.info("Solicitud recibida para verificar la clave del usuario con ID: {}", id);
+
+        try {
+            if (usuarioService.verificarClave(id, claveDTO.clave())) {
+                return ResponseEntity.noContent().build();
+            }
+            logger.warn("Clave incorrecta para el usuario con ID: {}", id);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new ErrorResponse(401, "Clave incorrecta"));
+
+        } catch (ResponseStatusException e) {
+            logger.warn("Error al verificar la clave del usuario con ID {}: {}", id, e.getReason());
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+
+
+
+    @Operation(
+            summary = "Crear usuarios por lotes",
+            description = "Crea varios usuarios en una sola solicitud. La unicidad de cédula y correo se valida " +
+                    "para todo el lote en una sola consulta y las filas válidas se insertan en lotes JDBC. " +
+                    "La respuesta informa el resultado de cada fila por su posición en el lote."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Todas las filas fueron creadas",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UsuarioBatchResponseDTO.class))),
+            @ApiResponse(responseCode = "207", description = "Algunas filas fueron rechazadas; ver el estado de cada fila",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "total": 2,
+                                  "creados": 1,
+                                  "fallidos": 1,
+                                  "resultados": [
+                                    { "indice": 0, "status": 201, "id": 51, "mensaje": "Usuario creado" },
+                                    { "indice": 1, "status": 409, "id": null, "mensaje": "La cédula ya está registrada" }
+                                  ]
+                                }
+                                """))),
+            @ApiResponse(responseCode = "400", description = "El lote está vacío o supera el máximo de filas",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 400,
+                                  "mensaje": "El lote no puede superar las 10000 filas"
+                                }
+                                """)))
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<?> createUsuarios(
+            @Parameter(description = "Lista de usuarios a crear", required = true)
+            @RequestBody List<UsuarioDTO> usuariosDTO) {
+
+        logger.info("Solicitud recibida para crear {} usuarios por lotes", usuariosDTO.size());
+
+        if (usuariosDTO.isEmpty()) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(400, "El lote no puede estar vacío"));
+        }
+
+        try {
+            UsuarioBatchResponseDTO resultado = usuarioService.saveAll(usuariosDTO);
+            HttpStatus status = resultado.fallidos() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(resultado);
+
+        } catch (ResponseStatusException e) {
+            logger.warn("Lote rechazado: {}", e.getReason());
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+
+
+
+    @Operation(
+            summary = "Importar usuarios desde un archivo CSV",
+            description = "Recibe un CSV (multipart, campo 'archivo') con encabezado nombre,cedula,email,rol,clave y " +
+                    "opcionalmente clase, en cualquier orden, y lo importa en segundo plano por bloques: cada bloque " +
+                    "se valida en paralelo y se confirma en una transacción junto con el avance. La respuesta 202 " +
+                    "trae la URL de estado en 'Location'. Las importaciones se procesan de a una."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Importación programada",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UsuarioImportacionDTO.class))),
+            @ApiResponse(responseCode = "400", description = "El archivo está vacío o le falta una columna obligatoria",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 400,
+                                  "mensaje": "Falta la columna 'cedula' en el encabezado; se esperan nombre,cedula,email,rol,clave y opcionalmente clase"
+                                }
+                                """)))
+    })
+    @PostMapping(value = "/importaciones", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importarUsuarios(
+            @Parameter(description = "Archivo CSV con los usuarios", required = true)
+            @RequestParam("archivo") MultipartFile archivo) {
+
+        logger.info("Solicitud recibida para importar el archivo {} ({} bytes)", archivo.getOriginalFilename(), archivo.getSize());
+
+        try {
+            UsuarioImportacionDTO importacion = usuarioImportaciones.crear(archivo);
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}")
+                            .buildAndExpand(importacion.id()).toUri())
+                    .body(importacion);
+
+        } catch (ResponseStatusException e) {
+            logger.warn("Importación rechazada: {}", e.getReason());
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+
+
+
+    @Operation(
+            summary = "Consultar una importación",
+            description = "Devuelve el estado de una importación CSV: filas confirmadas, creadas y rechazadas, " +
+                    "filas por segundo y, si falló, el motivo."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado de la importación",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "id": 1,
+                                  "archivo": "estudiantes-2025.csv",
+                                  "estado": "EN_CURSO",
+                                  "filasProcesadas": 120000,
+                                  "creados": 119850,
+                                  "fallidos": 150,
+                                  "filasPorSegundo": 850.5,
+                                  "mensaje": null,
+                                  "creada": "2025-03-01T14:00:00Z",
+                                  "actualizada": "2025-03-01T14:02:21Z"
+                                }
+                                """))),
+            @ApiResponse(responseCode = "404", description = "Importación no encontrada",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 404,
+                                  "mensaje": "Importación no encontrada con ID: 99"
+                                }
+                                """)))
+    })
+    @GetMapping("/importaciones/{id}")
+    public ResponseEntity<?> getImportacion(
+            @Parameter(description = "ID de la importación", required = true, example = "1")
+            @PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(usuarioImportaciones.estado(id));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+
+
+
+    @Operation(
+            summary = "Filas rechazadas de una importación",
+            description = "Devuelve, en orden de fila y paginadas, las filas rechazadas de una importación CSV. " +
+                    "'indice' es la fila del archivo, contando el encabezado como la fila 1."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Filas rechazadas",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                [
+                                  { "indice": 7, "status": 400, "id": null, "mensaje": "El correo debe tener un formato válido" },
+                                  { "indice": 12, "status": 409, "id": null, "mensaje": "La cédula ya está registrada" }
+                                ]
+                                """))),
+            @ApiResponse(responseCode = "404", description = "Importación no encontrada",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 404,
+                                  "mensaje": "Importación no encontrada con ID: 99"
+                                }
+                                """)))
+    })
+    @GetMapping("/importaciones/{id}/errores")
+    public ResponseEntity<?> getErroresImportacion(
+            @Parameter(description = "ID de la importación", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Número de página (comienza en 0)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Tamaño de la página (máximo 1000)", example = "100")
+            @RequestParam(defaultValue = "100") int size) {
+
+        if (page < 0 || size < 1 || size > 1000) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(400, "La página debe ser >= 0 y el tamaño entre 1 y 1000"));
+        }
+        try {
+            return ResponseEntity.ok(usuarioImportaciones.errores(id, page, size));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+
+
+
+    @Operation(
+            summary = "Reanudar una importación fallida",
+            description = "Continúa una importación FALLIDA desde el último bloque confirmado, sin repetir filas."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Importación reanudada",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UsuarioImportacionDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Importación no encontrada",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 404,
+                                  "mensaje": "Importación no encontrada con ID: 99"
+                                }
+                                """))),
+            @ApiResponse(responseCode = "409", description = "La importación no está fallida, su archivo ya no existe u otra instancia ya la reanudó",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 409,
+                                  "mensaje": "Solo se pueden reanudar importaciones fallidas; estado actual: COMPLETADA"
+                                }
+                                """)))
+    })
+    @PostMapping("/importaciones/{id}/reanudar")
+    public ResponseEntity<?> reanudarImportacion(
+            @Parameter(description = "ID de la importación", required = true, example = "1")
+            @PathVariable Long id) {
+        try {
+            return ResponseEntity.accepted().body(usuarioImportaciones.reanudar(id));
+        } catch (ResponseStatusException e) {
+            logger.warn("No se pudo reanudar la importación {}: {}", id, e.getReason());
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        }
+    }
+
+
+
+
     @Operation(
             summary = "Actualizar un usuario existente",
             description = "Modifica los datos de un usuario registrado en el sistema dado su ID. " +
@@ -347,10 +1004,72 @@ public class UsuarioController {
     }
 
 
+    @Operation(
+            summary = "Eliminar usuarios en bloque",
+            description = "Elimina con sentencias DELETE por conjunto, sin leer las filas, los usuarios de una lista " +
+                    "de IDs ('ids') o todos los de una clase ('clase'). Se debe enviar exactamente uno de los dos " +
+                    "parámetros. Los IDs que no existen se ignoran; la respuesta indica cuántos usuarios se eliminaron."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Eliminación realizada",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UsuarioEliminacionResponseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Falta el criterio, se enviaron ambos o hay demasiados IDs",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 400,
+                                  "mensaje": "Envíe solo uno de los parámetros 'ids' o 'clase'"
+                                }
+                                """))),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 500,
+                                  "mensaje": "Error interno al eliminar los usuarios"
+                                }
+                                """)))
+    })
+    @DeleteMapping
+    public ResponseEntity<?> deleteUsuarios(
+            @Parameter(description = "IDs de los usuarios a eliminar", example = "1,2,3")
+            @RequestParam(required = false) List<Long> ids,
+            @Parameter(description = "Clase cuyos usuarios se eliminan", example = "Programación I")
+            @RequestParam(required = false) String clase) {
+
+        logger.info("Solicitud recibida para eliminar usuarios en bloque - IDs: {}, Clase: {}",
+                ids != null ? ids.size() : null, clase);
+
+        if ((ids == null || ids.isEmpty()) == (clase == null || clase.isBlank())) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(400, "Envíe solo uno de los parámetros 'ids' o 'clase'"));
+        }
+
+        try {
+            int eliminados = ids != null && !ids.isEmpty()
+                    ? usuarioService.deleteAllById(ids)
+                    : usuarioService.deleteByClase(clase);
+            return ResponseEntity.ok(new UsuarioEliminacionResponseDTO(eliminados));
+
+        } catch (ResponseStatusException e) {
+            logger.warn("Eliminación en bloque rechazada: {}", e.getReason());
+            return ResponseEntity.status(e.getStatusCode())
+                    .body(new ErrorResponse(e.getStatusCode().value(), e.getReason()));
+        } catch (Exception e) {
+            logger.error("Error interno al eliminar usuarios en bloque", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse(500, "Error interno al eliminar los usuarios"));
+        }
+    }
+
+
     @Operation(
             summary = "Actualizar parcialmente un usuario",
             description = "Permite actualizar uno o varios campos de un usuario existente dado su ID. " +
-                    "Solo los campos proporcionados en el cuerpo de la solicitud serán modificados."
+                    "Solo los campos proporcionados en el cuerpo de la solicitud serán modificados, con una sola " +
+                    "sentencia UPDATE. Acepta application/json y JSON Merge Patch (application/merge-patch+json): " +
+                    "un campo en null elimina su valor, lo que solo se permite para 'clase'. " +
+                    "Con el encabezado 'Prefer: return=minimal' responde 204 sin volver a leer el usuario."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Usuario actualizado correctamente",
@@ -365,6 +1084,15 @@ public class UsuarioController {
                                   "clase": "Programación II"
                                 }
                                 """))),
+            @ApiResponse(responseCode = "204", description = "Usuario actualizado; se pidió 'Prefer: return=minimal'"),
+            @ApiResponse(responseCode = "400", description = "Valor inválido o campo obligatorio en null",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = """
+                                {
+                                  "codigo": 400,
+                                  "mensaje": "El campo 'email' es obligatorio y no puede eliminarse"
+                                }
+                                """))),
             @ApiResponse(responseCode = "404", description = "Usuario no encontrado con el ID especificado",
                     content = @Content(mediaType = "application/json",
                             examples = @ExampleObject(value = """
@@ -390,20 +1118,26 @@ public class UsuarioController {
                                 }
                                 """)))
     })
-    @PatchMapping("/{id}")
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MERGE_PATCH_JSON})
     public ResponseEntity<?> partialUpdateUsuario(
             @Parameter(description = "ID del usuario a actualizar", required = true, example = "1")
             @PathVariable Long id,
             @Parameter(description = "Campos a actualizar en formato JSON. Solo los campos enviados serán modificados.",
                     required = true,
                     example = "{ \"nombre\": \"Nuevo Nombre\", \"email\": \"nuevo.email@example.com\" }")
-            @RequestBody Map<String, Object> updates) {
+            @RequestBody Map<String, Object> updates,
+            @Parameter(description = "'return=minimal' para recibir 204 sin el usuario actualizado", example = "return=minimal")
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
 
         logger.info("Solicitud PATCH recibida para actualizar usuario con ID: {}", id);
 
         try {
-            UsuarioDTO updatedUsuario = usuarioService.partialUpdateUsuario(id, updates);
+            boolean minimal = prefer != null && prefer.contains("return=minimal");
+            UsuarioDTO updatedUsuario = usuarioService.partialUpdateUsuario(id, updates, !minimal);
             logger.info("Usuario con ID {} actualizado parcialmente.", id);
+            if (minimal) {
+                return ResponseEntity.noContent().header("Preference-Applied", "return=minimal").build();
+            }
             return ResponseEntity.ok(updatedUsuario);
 
         } catch (ResponseStatusException e) {
@@ -418,5 +1152,34 @@ public class UsuarioController {
     }
 
 
+    // Formato compacto si es el preferido en 'Accept' (mayor calidad, y a igual calidad el primero); los
+    // comodines no cuentan, así que los clientes de siempre siguen recibiendo el Page completo en JSON
+    private static MediaType formatoCompacto(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+        try {
+            MediaType preferido = MediaType.parseMediaTypes(accept).stream()
+                    .min(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                    .orElse(null);
+            return FORMATOS_COMPACTOS.stream()
+                    .filter(compacto -> preferido != null && compacto.equalsTypeAndSubtype(preferido))
+                    .findFirst()
+                    .orElse(null);
+        } catch (InvalidMediaTypeException e) {
+            return null; // la negociación de Spring responde 406
+        }
+    }
+
+    private static Object cuerpoPagina(Page<UsuarioResponseDTO> pagina, MediaType formato) {
+        return formato != null ? UsuarioPaginaDTO.de(pagina) : pagina;
+    }
 
+    // Cada formato es una representación distinta: el ETag fuerte no puede coincidir entre JSON y CBOR
+    private static String etagFormato(String etag, MediaType formato) {
+        if (etag == null || formato == null) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + ";" + formato.getSubtype() + "\"";
+    }
 }
@@ -0,0 +1,90 @@
+package com.uniquindio.api.crud.controller;
+
+import com.uniquindio.api.crud.dto.ErrorResponse;
+import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import com.uniquindio.api.crud.repository.UsuarioReactivoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handlers WebFlux de solo lectura para listar y consultar usuarios. Atienden en el servidor
+ * Reactor Netty de {@code ReactivoConfig}, junto al controlador MVC, con unos pocos hilos de
+ * event loop en vez de un hilo bloqueado por solicitud.
+ */
+@Component
+@ConditionalOnProperty(name = "usuarios.reactivo.enabled", havingValue = "true")
+public class UsuarioReactivoHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioReactivoHandler.class);
+
+    // Mismo máximo que los listados paginados del controlador MVC; la tabla completa sale de /export
+    private static final int TAMANO_MAXIMO = 1000;
+
+    private final UsuarioReactivoRepository usuarioReactivoRepository;
+
+    public UsuarioReactivoHandler(UsuarioReactivoRepository usuarioReactivoRepository) {
+        this.usuarioReactivoRepository = usuarioReactivoRepository;
+    }
+
+    // GET /api/usuarios?desde=0&size=10 (size entre 1 y 1000; con Accept NDJSON, una fila por línea)
+    // La página se lee completa antes de responder: un error de la base de datos llega como
+    // ErrorResponse y no como una respuesta 200 cortada
+    public Mono<ServerResponse> listar(ServerRequest request) {
+        long desde;
+        int size;
+        try {
+            desde = Long.parseLong(request.queryParam("desde").orElse("0"));
+            size = Integer.parseInt(request.queryParam("size").orElse("10"));
+        } catch (NumberFormatException e) {
+            return error(HttpStatus.BAD_REQUEST, "Los parámetros 'desde' y 'size' deben ser números válidos");
+        }
+        if (size < 1 || size > TAMANO_MAXIMO) {
+            return error(HttpStatus.BAD_REQUEST, "El tamaño de página debe estar entre 1 y " + TAMANO_MAXIMO);
+        }
+
+        MediaType tipo = request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.APPLICATION_JSON;
+        return usuarioReactivoRepository.findAfter(desde, size)
+                .collectList()
+                .flatMap(usuarios -> ServerResponse.ok()
+                        .contentType(tipo)
+                        .body(Flux.fromIterable(usuarios), UsuarioResponseDTO.class))
+                .onErrorResume(e -> {
+                    logger.error("Error inesperado al listar los usuarios desde el ID: {}", desde, e);
+                    return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor");
+                });
+    }
+
+    // GET /api/usuarios/{id}
+    public Mono<ServerResponse> obtener(ServerRequest request) {
+        long id;
+        try {
+            id = Long.parseLong(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return error(HttpStatus.BAD_REQUEST, "El ID debe ser un número válido");
+        }
+
+        return usuarioReactivoRepository.findById(id)
+                .flatMap(usuario -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(usuario))
+                .switchIfEmpty(Mono.defer(() -> error(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id)))
+                .onErrorResume(e -> {
+                    logger.error("Error inesperado al obtener el usuario con ID: {}", id, e);
+                    return error(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor");
+                });
+    }
+
+    private static Mono<ServerResponse> error(HttpStatus status, String mensaje) {
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ErrorResponse(status.value(), mensaje));
+    }
+}
@@ -0,0 +1,22 @@
+package com.uniquindio.api.crud.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Resumen de una creación por lotes con el resultado de cada fila")
+public record UsuarioBatchResponseDTO(
+
+        @Schema(description = "Filas recibidas", example = "1000")
+        int total,
+
+        @Schema(description = "Filas creadas", example = "998")
+        int creados,
+
+        @Schema(description = "Filas rechazadas", example = "2")
+        int fallidos,
+
+        List<UsuarioBatchResultadoDTO> resultados
+
+) {
+}
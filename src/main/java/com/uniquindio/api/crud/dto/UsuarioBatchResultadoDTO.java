@@ -0,0 +1,21 @@
+package com.uniquindio.api.crud.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Resultado de una fila dentro de una creación por lotes")
+public record UsuarioBatchResultadoDTO(
+
+        @Schema(description = "Posición de la fila en el lote enviado", example = "0")
+        int indice,
+
+        @Schema(description = "Estado HTTP de la fila", example = "201")
+        int status,
+
+        @Schema(description = "ID asignado si la fila fue creada", example = "1")
+        Long id,
+
+        @Schema(description = "Detalle del resultado", example = "Usuario creado")
+        String mensaje
+
+) {
+}
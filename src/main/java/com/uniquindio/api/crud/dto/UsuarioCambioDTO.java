@@ -0,0 +1,57 @@
+package com.uniquindio.api.crud.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Schema(description = "Cambio de un usuario publicado en GET /api/usuarios/cambios")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UsuarioCambioDTO(
+
+        @Schema(description = "Tipo de cambio; también es el nombre del evento SSE", example = "MODIFICADO")
+        Tipo tipo,
+
+        @Schema(description = "ID del usuario; ausente en CLASE_ELIMINADA", example = "1")
+        Long id,
+
+        @Schema(description = "Usuario tras el cambio, en CREADO y ACTUALIZADO")
+        UsuarioResponseDTO usuario,
+
+        @Schema(description = "Campos públicos modificados con su nuevo valor, en MODIFICADO; " +
+                "vacío si solo cambiaron la cédula o el rol", example = "{\"email\": \"nuevo@uniquindio.edu\"}")
+        Map<String, Object> campos,
+
+        @Schema(description = "Clase eliminada, en CLASE_ELIMINADA", example = "Programación I")
+        String clase,
+
+        @Schema(description = "Momento en que se confirmó el cambio")
+        Instant instante
+
+) {
+
+    public enum Tipo {
+        CREADO, ACTUALIZADO, MODIFICADO, ELIMINADO, CLASE_ELIMINADA
+    }
+
+    public static UsuarioCambioDTO creado(UsuarioResponseDTO usuario) {
+        return new UsuarioCambioDTO(Tipo.CREADO, usuario.id(), usuario, null, null, Instant.now());
+    }
+
+    public static UsuarioCambioDTO actualizado(UsuarioResponseDTO usuario) {
+        return new UsuarioCambioDTO(Tipo.ACTUALIZADO, usuario.id(), usuario, null, null, Instant.now());
+    }
+
+    public static UsuarioCambioDTO modificado(Long id, Map<String, Object> campos) {
+        return new UsuarioCambioDTO(Tipo.MODIFICADO, id, null, campos, null, Instant.now());
+    }
+
+    public static UsuarioCambioDTO eliminado(Long id) {
+        return new UsuarioCambioDTO(Tipo.ELIMINADO, id, null, null, null, Instant.now());
+    }
+
+    public static UsuarioCambioDTO claseEliminada(String clase) {
+        return new UsuarioCambioDTO(Tipo.CLASE_ELIMINADA, null, null, null, clase, Instant.now());
+    }
+}
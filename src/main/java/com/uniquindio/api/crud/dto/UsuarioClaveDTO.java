@@ -0,0 +1,14 @@
+package com.uniquindio.api.crud.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+
+@Schema(description = "Clave a verificar")
+public record UsuarioClaveDTO(
+
+        @Schema(description = "contraseña del usuario", example = "12345")
+        @NotBlank(message = "la contraseña es obligatoria")
+        String clave
+
+) {
+}
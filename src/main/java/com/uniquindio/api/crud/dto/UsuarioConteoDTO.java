@@ -0,0 +1,18 @@
+package com.uniquindio.api.crud.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Cantidad de usuarios con un rol en una clase")
+public record UsuarioConteoDTO(
+
+        @Schema(description = "Rol del usuario", example = "ESTUDIANTE")
+        String rol,
+
+        @Schema(description = "Clase; null para los usuarios sin clase", example = "Programación I")
+        String clase,
+
+        @Schema(description = "Cantidad de usuarios", example = "42")
+        long cantidad
+
+) {
+}
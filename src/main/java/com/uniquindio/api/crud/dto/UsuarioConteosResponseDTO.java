@@ -0,0 +1,16 @@
+package com.uniquindio.api.crud.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Conteos de usuarios por rol y clase")
+public record UsuarioConteosResponseDTO(
+
+        @Schema(description = "Total de usuarios", example = "1250")
+        long total,
+
+        List<UsuarioConteoDTO> grupos
+
+) {
+}
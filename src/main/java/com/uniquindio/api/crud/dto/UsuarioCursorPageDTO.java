@@ -0,0 +1,20 @@
+package com.uniquindio.api.crud.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Página de usuarios obtenida por cursor (keyset), sin conteo total")
+public record UsuarioCursorPageDTO(
+
+        List<UsuarioResponseDTO> content,
+
+        @Schema(description = "Cantidad de usuarios en esta página", example = "10")
+        int size,
+
+        @Schema(description = "Cursor opaco para pedir la siguiente página; null si no hay más usuarios",
+                example = "MTA")
+        String nextCursor
+
+) {
+}
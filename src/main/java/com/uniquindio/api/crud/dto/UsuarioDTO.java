@@ -1,5 +1,6 @@
 package com.uniquindio.api.crud.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.uniquindio.api.crud.model.RolUsuario;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
@@ -31,9 +32,11 @@ public record UsuarioDTO(
         @Size(max = 50, message = "El nombre de la clase no puede superar los 50 caracteres")
         String clase,
 
-        @Schema(description = "contraseña del usuario", example = "123")
+        @Schema(description = "contraseña del usuario; solo se recibe, nunca se devuelve", example = "12345",
+                accessMode = Schema.AccessMode.WRITE_ONLY)
         @Size (max = 20, min = 5, message = "solo se pueden claves entre 5 y 20 caracteres")
         @NotBlank (message = "la contraseña es obligatoria")
+        @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
         String clave
 
 
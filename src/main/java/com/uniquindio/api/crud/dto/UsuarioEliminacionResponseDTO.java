@@ -0,0 +1,12 @@
+package com.uniquindio.api.crud.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Resumen de una eliminación masiva")
+public record UsuarioEliminacionResponseDTO(
+
+        @Schema(description = "Usuarios eliminados", example = "350")
+        int eliminados
+
+) {
+}
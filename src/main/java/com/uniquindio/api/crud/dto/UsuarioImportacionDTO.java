@@ -0,0 +1,50 @@
+package com.uniquindio.api.crud.dto;
+
+import com.uniquindio.api.crud.model.EstadoImportacion;
+import com.uniquindio.api.crud.model.Importacion;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+@Schema(description = "Estado y avance de una importación de usuarios desde CSV")
+public record UsuarioImportacionDTO(
+
+        @Schema(description = "ID de la importación", example = "1")
+        Long id,
+
+        @Schema(description = "Nombre del archivo enviado", example = "estudiantes-2025.csv")
+        String archivo,
+
+        @Schema(description = "Estado de la importación", example = "EN_CURSO")
+        EstadoImportacion estado,
+
+        @Schema(description = "Filas de datos confirmadas, sin contar el encabezado", example = "120000")
+        long filasProcesadas,
+
+        @Schema(description = "Usuarios creados", example = "119850")
+        long creados,
+
+        @Schema(description = "Filas rechazadas; el detalle está en /importaciones/{id}/errores", example = "150")
+        long fallidos,
+
+        @Schema(description = "Filas procesadas por segundo de trabajo", example = "850.5")
+        double filasPorSegundo,
+
+        @Schema(description = "Motivo del fallo, si la importación falló", example = "Conexión rechazada")
+        String mensaje,
+
+        Instant creada,
+
+        Instant actualizada
+
+) {
+
+    public static UsuarioImportacionDTO de(Importacion importacion) {
+        double filasPorSegundo = importacion.getDuracionMs() > 0
+                ? importacion.getFilasProcesadas() * 1000.0 / importacion.getDuracionMs() : 0;
+        return new UsuarioImportacionDTO(importacion.getId(), importacion.getArchivo(), importacion.getEstado(),
+                importacion.getFilasProcesadas(), importacion.getCreados(), importacion.getFallidos(),
+                Math.round(filasPorSegundo * 10) / 10.0, importacion.getMensaje(), importacion.getCreada(),
+                importacion.getActualizada());
+    }
+}
@@ -0,0 +1,16 @@
+package com.uniquindio.api.crud.dto;
+
+/**
+ * Página del listado junto con su ETag, calculado con las versiones de las mismas filas que se
+ * cargaron: el ETag siempre corresponde al cuerpo que se responde, sin otra consulta.
+ *
+ * @param <T> la página ({@code Page} por número o {@link UsuarioCursorPageDTO} por cursor)
+ */
+public record UsuarioListadoVersionadoDTO<T>(
+
+        T pagina,
+
+        String etag
+
+) {
+}
@@ -0,0 +1,31 @@
+package com.uniquindio.api.crud.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+@Schema(description = "Página de usuarios en formato compacto: el contenido y los totales, sin los metadatos de Pageable y Sort")
+public record UsuarioPaginaDTO(
+
+        List<UsuarioResponseDTO> content,
+
+        @Schema(description = "Número de página, empezando en 0", example = "0")
+        int page,
+
+        @Schema(description = "Tamaño de página solicitado", example = "10")
+        int size,
+
+        @Schema(description = "Total de usuarios registrados; estimado si la respuesta trae 'X-Total-Estimado: true'", example = "125")
+        long totalElements,
+
+        @Schema(description = "Total de páginas", example = "13")
+        int totalPages
+
+) {
+
+    public static UsuarioPaginaDTO de(Page<UsuarioResponseDTO> pagina) {
+        return new UsuarioPaginaDTO(pagina.getContent(), pagina.getNumber(), pagina.getSize(),
+                pagina.getTotalElements(), pagina.getTotalPages());
+    }
+}
@@ -0,0 +1,18 @@
+package com.uniquindio.api.crud.dto;
+
+/**
+ * Entrada de la caché de usuarios: el usuario junto con la versión de la fila que se leyó. El ETag de
+ * {@code GET /{id}} sale de esta misma entrada, así siempre corresponde al cuerpo que se responde.
+ */
+public record UsuarioVersionadoDTO(
+
+        UsuarioResponseDTO usuario,
+
+        long version
+
+) {
+
+    public String etag() {
+        return "\"" + usuario.id() + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,5 @@
+package com.uniquindio.api.crud.model;
+
+public enum EstadoImportacion {
+    PENDIENTE, EN_CURSO, COMPLETADA, FALLIDA
+}
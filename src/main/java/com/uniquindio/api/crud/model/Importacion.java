@@ -0,0 +1,61 @@
+package com.uniquindio.api.crud.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Importación de usuarios desde un archivo CSV. El avance se guarda en la misma transacción que
+ * cada bloque de filas, así una importación fallida o interrumpida se reanuda desde el último
+ * bloque confirmado.
+ */
+@Entity
+@Table(name = "importaciones", indexes = @Index(name = "idx_importaciones_estado", columnList = "estado"))
+@Getter
+@Setter
+public class Importacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Nombre del archivo enviado por el cliente. */
+    private String archivo;
+
+    /** Copia del archivo en el directorio de importaciones; se elimina al completar. */
+    @Column(nullable = false, length = 1024)
+    private String ruta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoImportacion estado;
+
+    /** Filas de datos ya confirmadas (creadas o con error), sin contar el encabezado. */
+    private long filasProcesadas;
+
+    private long creados;
+
+    private long fallidos;
+
+    /** Tiempo acumulado procesando bloques, base de las filas por segundo. */
+    private long duracionMs;
+
+    /** Motivo del último fallo. */
+    @Column(length = 1000)
+    private String mensaje;
+
+    /**
+     * Instancia que ejecuta la importación (usuarios.importacion.nodo) y hasta cuándo la tiene tomada;
+     * la renueva mientras la ejecuta. Otra instancia solo la retoma cuando el arriendo vence.
+     */
+    @Column(length = 200)
+    private String nodo;
+
+    private Instant arriendoHasta;
+
+    private Instant creada;
+
+    private Instant actualizada;
+}
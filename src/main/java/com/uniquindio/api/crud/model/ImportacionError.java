@@ -0,0 +1,42 @@
+package com.uniquindio.api.crud.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Fila rechazada de una {@link Importacion}, con el mismo estado y mensaje que tendría en una
+ * creación por lotes.
+ */
+@Entity
+@Table(name = "importacion_errores",
+        indexes = @Index(name = "idx_importacion_errores_fila", columnList = "importacion_id, fila"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImportacionError {
+
+    // Secuencia en bloques para que los errores de un bloque se inserten en lotes JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "importacion_errores_seq")
+    @SequenceGenerator(name = "importacion_errores_seq", sequenceName = "importacion_errores_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "importacion_id", nullable = false)
+    private Long importacionId;
+
+    /** Fila del archivo, contando el encabezado como la fila 1. */
+    private int fila;
+
+    private int status;
+
+    private String mensaje;
+
+    public ImportacionError(Long importacionId, int fila, int status, String mensaje) {
+        this.importacionId = importacionId;
+        this.fila = fila;
+        this.status = status;
+        this.mensaje = mensaje;
+    }
+}
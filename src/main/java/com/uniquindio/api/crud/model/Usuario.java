@@ -1,20 +1,42 @@
 package com.uniquindio.api.crud.model;
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 @Entity
-@Table(name = "usuarios")
+@Table(name = "usuarios", uniqueConstraints = {
+        @UniqueConstraint(name = Usuario.UK_CEDULA, columnNames = "cedula"),
+        @UniqueConstraint(name = Usuario.UK_EMAIL, columnNames = "email")
+}, indexes = {
+        // Eliminación masiva por clase
+        @Index(name = "idx_usuarios_clase", columnList = "clase"),
+        // Búsqueda (GET /search): filtro por rol y clase, y prefijo del nombre
+        @Index(name = "idx_usuarios_rol_clase", columnList = "rol, clase"),
+        @Index(name = "idx_usuarios_nombre", columnList = "nombre")
+})
 @Schema(description = "Entidad que representa a un usuario (estudiante o profesor)")
 @Data
 public class Usuario {
 
+    /** Nombres de las restricciones de unicidad, usados para traducir violaciones a respuestas 409. */
+    public static final String UK_CEDULA = "uk_usuarios_cedula";
+    public static final String UK_EMAIL = "uk_usuarios_email";
+
+    /** Secuencia de los ID y tamaño de los bloques que Hibernate toma de ella. */
+    public static final String SECUENCIA = "usuarios_seq";
+    public static final int BLOQUE_ID = 50;
+
     /**
-     * Identificador único del usuario, autoincremental.
+     * Identificador único del usuario.
+     * Se genera con una secuencia en bloques (pooled) para que Hibernate pueda
+     * agrupar los INSERT en lotes JDBC; con IDENTITY el batching queda desactivado.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = Usuario.SECUENCIA)
+    @SequenceGenerator(name = Usuario.SECUENCIA, sequenceName = Usuario.SECUENCIA, allocationSize = Usuario.BLOQUE_ID)
     @Schema(description = "Identificador único del usuario", example = "1", accessMode = Schema.AccessMode.READ_ONLY)
     private Long id;
 
@@ -35,7 +57,7 @@ public class Usuario {
     @NotBlank(message = "La cédula es obligatoria")
     @Size(max = 10, message = "La cédula debe tener máximo 10 dígitos")
     @Pattern(regexp = "^\\d+$", message = "La cédula solo puede contener números")
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String cedula;
 
     /**
@@ -45,7 +67,7 @@ public class Usuario {
     @NotBlank(message = "El correo es obligatorio")
     @Email(message = "El correo debe tener un formato válido")
     @Size(max = 50, message = "El correo no puede superar los 50 caracteres")
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     /**
@@ -65,11 +87,24 @@ public class Usuario {
     @Size(max = 50, message = "El nombre de la clase no puede superar los 50 caracteres")
     private String clase;
 
-    @Schema(description = "contraseña del usuario", example = "123")
-    @Size (max = 20, min = 5, message = "solo se pueden claves entre 5 y 20 caracteres")
+    /**
+     * Hash BCrypt de la contraseña; la longitud de la clave en texto plano se valida en UsuarioDTO.
+     */
+    @Schema(description = "Hash BCrypt de la contraseña del usuario", accessMode = Schema.AccessMode.WRITE_ONLY)
     @NotBlank (message = "la contraseña es obligatoria")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String clave;
 
+    /**
+     * Versión de la fila, incrementada por Hibernate en cada actualización.
+     * Sirve como bloqueo optimista y como ETag de las lecturas (GET condicional).
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @Schema(description = "Versión de la fila", example = "0", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
     public Usuario(Long id, String nombre, String cedula, String email, RolUsuario rolUsuario, String clase, String clave) {
         this.id = id;
         this.nombre = nombre;
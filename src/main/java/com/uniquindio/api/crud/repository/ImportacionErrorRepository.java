@@ -0,0 +1,16 @@
+package com.uniquindio.api.crud.repository;
+
+import com.uniquindio.api.crud.model.ImportacionError;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+// Sin readOnly, como ImportacionRepository: los errores de una importación en curso se leen del primario
+@Repository
+@Transactional
+public interface ImportacionErrorRepository extends JpaRepository<ImportacionError, Long> {
+
+    Slice<ImportacionError> findByImportacionIdOrderByFila(Long importacionId, Pageable pageable);
+}
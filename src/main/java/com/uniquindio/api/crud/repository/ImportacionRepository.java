@@ -0,0 +1,64 @@
+package com.uniquindio.api.crud.repository;
+
+import com.uniquindio.api.crud.model.EstadoImportacion;
+import com.uniquindio.api.crud.model.Importacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+// A diferencia de UsuarioRepository, sin readOnly: con réplicas las transacciones de solo lectura van a
+// una réplica, y el estado de una importación (reanudar al arrancar, consultar el avance) debe leerse del
+// primario para no perder trabajos encolados justo antes de un reinicio
+@Repository
+@Transactional
+public interface ImportacionRepository extends JpaRepository<Importacion, Long> {
+
+    List<Importacion> findByEstadoIn(Collection<EstadoImportacion> estados);
+
+    /**
+     * Suma el avance de un bloque; se ejecuta en la transacción que inserta el bloque. Devuelve 0 si la
+     * importación ya no es de {@code nodo} (su arriendo venció y la tomó otra instancia).
+     */
+    @Transactional
+    @Modifying
+    @Query("update Importacion i set i.filasProcesadas = i.filasProcesadas + :filas, i.creados = i.creados + :creados, " +
+            "i.fallidos = i.fallidos + :fallidos, i.duracionMs = i.duracionMs + :duracionMs, i.actualizada = :ahora " +
+            "where i.id = :id and i.nodo = :nodo")
+    int avanzar(@Param("id") Long id, @Param("nodo") String nodo, @Param("filas") long filas,
+                @Param("creados") long creados, @Param("fallidos") long fallidos,
+                @Param("duracionMs") long duracionMs, @Param("ahora") Instant ahora);
+
+    /**
+     * Toma una importación en alguno de {@code estados} para {@code nodo} hasta {@code hasta}, si está
+     * libre, ya es suya o su arriendo venció; devuelve 0 si la tiene otra instancia.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Importacion i set i.nodo = :nodo, i.arriendoHasta = :hasta where i.id = :id and i.estado in :estados " +
+            "and (i.nodo is null or i.nodo = :nodo or i.arriendoHasta is null or i.arriendoHasta < :ahora)")
+    int reclamar(@Param("id") Long id, @Param("estados") Collection<EstadoImportacion> estados,
+                 @Param("nodo") String nodo, @Param("hasta") Instant hasta, @Param("ahora") Instant ahora);
+
+    @Transactional
+    @Modifying
+    @Query("update Importacion i set i.arriendoHasta = :hasta where i.id in :ids and i.nodo = :nodo")
+    int renovar(@Param("ids") Collection<Long> ids, @Param("nodo") String nodo, @Param("hasta") Instant hasta);
+
+    @Transactional
+    @Modifying
+    @Query("update Importacion i set i.nodo = null, i.arriendoHasta = null where i.id = :id and i.nodo = :nodo")
+    int liberar(@Param("id") Long id, @Param("nodo") String nodo);
+
+    @Transactional
+    @Modifying
+    @Query("update Importacion i set i.estado = :estado, i.mensaje = :mensaje, i.actualizada = :ahora where i.id = :id")
+    int cambiarEstado(@Param("id") Long id, @Param("estado") EstadoImportacion estado,
+                      @Param("mensaje") String mensaje, @Param("ahora") Instant ahora);
+}
@@ -0,0 +1,58 @@
+package com.uniquindio.api.crud.repository;
+
+import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Lecturas no bloqueantes de la tabla usuarios sobre R2DBC. Devuelve directamente
+ * {@link UsuarioResponseDTO}: solo lee las columnas que expone la API.
+ */
+@Repository
+@ConditionalOnProperty(name = "usuarios.reactivo.enabled", havingValue = "true")
+public class UsuarioReactivoRepository {
+
+    private static final String COLUMNAS = "SELECT id, nombre, email, clase FROM usuarios";
+
+    private final DatabaseClient databaseClient;
+
+    public UsuarioReactivoRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Hasta {@code limite} usuarios con ID mayor a {@code desdeId}, en orden de ID.
+     * Las filas se piden al driver según la demanda del suscriptor.
+     */
+    public Flux<UsuarioResponseDTO> findAfter(long desdeId, int limite) {
+        return databaseClient.sql(COLUMNAS + " WHERE id > :desde ORDER BY id LIMIT :limite")
+                .bind("desde", desdeId)
+                .bind("limite", limite)
+                .map(UsuarioReactivoRepository::convertir)
+                .all();
+    }
+
+    public Mono<UsuarioResponseDTO> findById(long id) {
+        return databaseClient.sql(COLUMNAS + " WHERE id = :id")
+                .bind("id", id)
+                .map(UsuarioReactivoRepository::convertir)
+                .one();
+    }
+
+    private static UsuarioResponseDTO convertir(Readable fila) {
+        return new UsuarioResponseDTO(
+                fila.get("id", Long.class),
+                valor(fila.get("nombre", String.class)),
+                valor(fila.get("email", String.class)),
+                valor(fila.get("clase", String.class))
+        );
+    }
+
+    private static String valor(String texto) {
+        return texto != null ? texto : "";
+    }
+}
@@ -1,15 +1,174 @@
 package com.uniquindio.api.crud.repository;
 
+import com.uniquindio.api.crud.model.RolUsuario;
 import com.uniquindio.api.crud.model.Usuario;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+// Las consultas son de solo lectura por defecto (con réplicas activas se leen de ellas, ver ReplicasConfig);
+// los métodos que escriben declaran su propia @Transactional
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+@Transactional(readOnly = true)
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, JpaSpecificationExecutor<Usuario>,
+        UsuarioRepositoryCustom {
+
+    /** Filas que el driver trae por viaje al recorrer la exportación con un cursor del servidor. */
+    String FETCH_SIZE_EXPORTACION = "1000";
+
     boolean existsByCedula(String cedula);
     boolean existsByEmail(String email);
     Optional<Usuario> findByCedula(String cedula);
     Optional<Usuario> findByEmail(String email);
+
+    /**
+     * Página por keyset: recorre la llave primaria desde {@code id} sin OFFSET ni count(*).
+     */
+    Slice<Usuario> findByIdGreaterThan(Long id, Pageable pageable);
+
+    /**
+     * Recorre en orden de ID los usuarios posteriores a {@code id} con un cursor de solo avance.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE_EXPORTACION),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from Usuario u where u.id > :id order by u.id")
+    Stream<Usuario> streamByIdGreaterThan(@Param("id") Long id);
+
+    /**
+     * Devuelve la cédula y el correo de los usuarios que ya usan alguno de los valores dados.
+     * Permite validar la unicidad de un lote completo en una sola consulta.
+     */
+    @Query("select u.cedula as cedula, u.email as email from Usuario u " +
+            "where u.cedula in :cedulas or u.email in :emails")
+    List<CedulaEmail> findCedulaEmailByCedulaInOrEmailIn(@Param("cedulas") Collection<String> cedulas,
+                                                         @Param("emails") Collection<String> emails);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE_EXPORTACION))
+    @Query("select u.cedula as cedula, u.email as email from Usuario u")
+    Stream<CedulaEmail> streamCedulaEmail();
+
+    /**
+     * Campos del índice de autocompletado de todos los usuarios, con un cursor de solo avance.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = FETCH_SIZE_EXPORTACION))
+    @Query("select u.id as id, u.nombre as nombre, u.email as email, u.rol as rol, u.clase as clase from Usuario u")
+    Stream<FilaIndice> streamFilaIndice();
+
+    /**
+     * ID y versión de los usuarios de una página; con ellos se calcula el ETag del listado
+     * sin leer ni serializar las filas completas.
+     */
+    @Query("select u.id as id, u.version as version from Usuario u")
+    Slice<IdVersion> findIdVersionBy(Pageable pageable);
+
+    /**
+     * Página del listado sin count(*): el total lo aportan los conteos en memoria.
+     */
+    Slice<Usuario> findSliceBy(Pageable pageable);
+
+    /**
+     * Cantidad de usuarios por rol y clase; se resuelve recorriendo idx_usuarios_rol_clase.
+     */
+    @Query("select u.rol as rol, u.clase as clase, count(u) as cantidad from Usuario u group by u.rol, u.clase")
+    List<ConteoRolClase> countByRolAndClase();
+
+    @Query("select u.id as id, u.version as version from Usuario u where u.id > :id")
+    Slice<IdVersion> findIdVersionByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Elimina con un solo {@code DELETE}, sin leer antes la fila como {@code deleteById}.
+     *
+     * @return filas eliminadas: 0 si el usuario no existe
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Usuario u where u.id = :id")
+    int deleteUsuarioById(@Param("id") Long id);
+
+    /**
+     * Usuarios existentes entre los IDs pedidos, con su rol y clase (para los conteos), bloqueados hasta
+     * que termine la transacción que los elimina o modifica: una escritura concurrente de los mismos
+     * IDs espera y lee los valores ya confirmados.
+     */
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u.id as id, u.rol as rol, u.clase as clase from Usuario u where u.id in :ids")
+    List<RolClase> bloquearExistentes(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Usuario u where u.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Usuario u where u.clase = :clase and u.rol = :rol")
+    int deleteByClaseAndRol(@Param("clase") String clase, @Param("rol") RolUsuario rol);
+
+    /** Los usuarios de la clase sin rol, que solo pueden venir de datos anteriores a la validación. */
+    @Transactional
+    @Modifying
+    @Query("delete from Usuario u where u.clase = :clase and u.rol is null")
+    int deleteByClaseAndRolIsNull(@Param("clase") String clase);
+
+    interface CedulaEmail {
+        String getCedula();
+        String getEmail();
+    }
+
+    interface FilaIndice {
+        Long getId();
+        String getNombre();
+        String getEmail();
+        RolUsuario getRol();
+        String getClase();
+    }
+
+    @Query("select u.clave from Usuario u where u.id = :id")
+    Optional<String> findClaveById(@Param("id") Long id);
+
+    /**
+     * Reemplaza la clave guardada solo si no cambió desde que se leyó; no incrementa la versión,
+     * porque la clave no forma parte de la representación del usuario.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Usuario u set u.clave = :nueva where u.id = :id and u.clave = :anterior")
+    int updateClave(@Param("id") Long id, @Param("anterior") String anterior, @Param("nueva") String nueva);
+
+    interface ConteoRolClase {
+        RolUsuario getRol();
+        String getClase();
+        long getCantidad();
+    }
+
+    interface RolClase {
+        Long getId();
+        RolUsuario getRol();
+        String getClase();
+    }
+
+    interface IdVersion {
+        Long getId();
+        Long getVersion();
+    }
 }
@@ -0,0 +1,19 @@
+package com.uniquindio.api.crud.repository;
+
+import java.util.Map;
+
+/**
+ * Operaciones de {@link UsuarioRepository} que no se pueden expresar con métodos derivados ni con
+ * {@code @Query}. Al formar parte del repositorio, sus errores se traducen a excepciones de Spring
+ * ({@code DataIntegrityViolationException}, etc.).
+ */
+public interface UsuarioRepositoryCustom {
+
+    /**
+     * Actualiza solo las columnas dadas (atributo de {@code Usuario} → valor) e incrementa la versión,
+     * en una sola sentencia {@code UPDATE} y sin leer antes la fila.
+     *
+     * @return filas modificadas: 0 si el usuario no existe
+     */
+    int actualizarCampos(Long id, Map<String, Object> campos);
+}
@@ -0,0 +1,35 @@
+package com.uniquindio.api.crud.repository;
+
+import com.uniquindio.api.crud.model.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Implementación de {@link UsuarioRepositoryCustom}; Spring Data la combina con {@link UsuarioRepository}.
+ */
+class UsuarioRepositoryImpl implements UsuarioRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int actualizarCampos(Long id, Map<String, Object> campos) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Usuario> update = cb.createCriteriaUpdate(Usuario.class);
+        Root<Usuario> usuario = update.from(Usuario.class);
+
+        campos.forEach((campo, valor) -> update.set(usuario.get(campo), valor));
+        // Mantiene el bloqueo optimista y los ETag, aunque la entidad no pase por Hibernate
+        update.set(usuario.<Long>get("version"), cb.sum(usuario.<Long>get("version"), 1L));
+        update.where(cb.equal(usuario.get("id"), id));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
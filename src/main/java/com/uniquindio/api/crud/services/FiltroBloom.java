@@ -0,0 +1,82 @@
+package com.uniquindio.api.crud.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom concurrente sobre cadenas. Un "no" es definitivo; un "quizás" puede ser
+ * un falso positivo con la probabilidad configurada. No admite borrados.
+ */
+final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+    private final AtomicLong bitsActivos = new AtomicLong();
+
+    FiltroBloom(long capacidad, double fpp) {
+        long m = (long) Math.ceil(-capacidad * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.numBits = Math.max(64, (m + 63) / 64 * 64);
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacidad * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (numBits / 64));
+    }
+
+    void agregar(String valor) {
+        long hash = hash(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual;
+            do {
+                actual = bits.get(palabra);
+                if ((actual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palabra, actual, actual | mascara));
+            if ((actual & mascara) == 0) {
+                bitsActivos.incrementAndGet();
+            }
+        }
+    }
+
+    boolean puedeContener(String valor) {
+        long hash = hash(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Probabilidad actual de falso positivo según la proporción de bits encendidos. */
+    double fppEstimada() {
+        return Math.pow((double) bitsActivos.get() / numBits, numHashes);
+    }
+
+    long bytes() {
+        return numBits / 8;
+    }
+
+    // FNV-1a de 64 bits seguido del mezclador final de MurmurHash3
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,90 @@
+package com.uniquindio.api.crud.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de registros CSV (RFC 4180) sobre un {@link Reader} con búfer: campos entre comillas con
+ * comas, comillas dobladas y saltos de línea; acepta finales de línea LF y CRLF e ignora el BOM inicial.
+ */
+class LectorCsv {
+
+    private final Reader reader;
+    private final StringBuilder campo = new StringBuilder();
+    private boolean inicio = true;
+    private int siguiente = -2;
+
+    LectorCsv(Reader reader) {
+        this.reader = reader;
+    }
+
+    /** Campos del siguiente registro, o {@code null} al final del archivo. Las líneas vacías se omiten. */
+    List<String> siguiente() throws IOException {
+        List<String> campos = new ArrayList<>();
+        campo.setLength(0);
+        boolean comillas = false;
+        boolean vacio = true;
+
+        while (true) {
+            int c = leer();
+            if (inicio) {
+                inicio = false;
+                if (c == '\uFEFF') {
+                    c = leer();
+                }
+            }
+            if (c < 0) {
+                if (vacio) {
+                    return null;
+                }
+                campos.add(campo.toString());
+                return campos;
+            }
+            vacio = false;
+            if (comillas) {
+                if (c == '"') {
+                    int despues = leer();
+                    if (despues == '"') {
+                        campo.append('"');
+                    } else {
+                        comillas = false;
+                        siguiente = despues;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                comillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int despues = leer();
+                    if (despues != '\n') {
+                        siguiente = despues;
+                    }
+                }
+                if (campos.isEmpty() && campo.isEmpty()) {
+                    vacio = true;
+                    continue;
+                }
+                campos.add(campo.toString());
+                return campos;
+            } else {
+                campo.append((char) c);
+            }
+        }
+    }
+
+    private int leer() throws IOException {
+        if (siguiente != -2) {
+            int c = siguiente;
+            siguiente = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
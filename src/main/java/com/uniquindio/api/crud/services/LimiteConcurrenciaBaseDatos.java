@@ -0,0 +1,97 @@
+package com.uniquindio.api.crud.services;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Con hilos virtuales el número de solicitudes simultáneas ya no lo limita Tomcat, así que el código
+ * que usa una conexión toma antes un permiso de un semáforo del tamaño del pool de conexiones. Las
+ * solicitudes sobrantes esperan aquí (sin bloquear hilos de plataforma) en vez de amontonarse dentro
+ * de Hikari hasta agotar su connectionTimeout.
+ * <p>
+ * El permiso cubre solo los límites donde se pide una conexión: los métodos de los repositorios, los
+ * métodos {@code @Transactional} y {@link TransactionOperations#execute}; el más externo lo retiene
+ * hasta terminar, junto con la transacción que abrió. No lo retienen el hash BCrypt de las claves ni
+ * la espera de una escritura agrupada (la toma el hilo de {@link UsuarioEscrituras} al confirmar el
+ * grupo). Va antes que la transacción: el permiso se toma antes de pedir la conexión.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class LimiteConcurrenciaBaseDatos {
+
+    private static final Logger logger = LoggerFactory.getLogger(LimiteConcurrenciaBaseDatos.class);
+
+    // Las llamadas anidadas del mismo hilo reutilizan el permiso ya tomado
+    private static final ThreadLocal<Boolean> conPermiso = new ThreadLocal<>();
+
+    private final Semaphore permisos;
+    private final long esperaMaximaMs;
+
+    public LimiteConcurrenciaBaseDatos(DataSource dataSource,
+                                       MeterRegistry registry,
+                                       @Value("${usuarios.db.max-concurrencia:0}") int maxConcurrencia,
+                                       @Value("${usuarios.db.espera-maxima:5s}") Duration esperaMaxima) {
+        int total = maxConcurrencia > 0 ? maxConcurrencia : tamanoPool(dataSource);
+        this.permisos = new Semaphore(total, true);
+        this.esperaMaximaMs = esperaMaxima.toMillis();
+
+        Gauge.builder("usuarios.db.permisos.disponibles", permisos, Semaphore::availablePermits)
+                .description("Permisos libres para acceder a la base de datos").register(registry);
+        Gauge.builder("usuarios.db.permisos.en.espera", permisos, Semaphore::getQueueLength)
+                .description("Solicitudes esperando un permiso para acceder a la base de datos").register(registry);
+        logger.info("Hilos virtuales activos: acceso a la base de datos limitado a {} solicitudes simultáneas", total);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))" +
+            " || execution(* org.springframework.transaction.support.TransactionOperations+.execute*(..))" +
+            " || (within(com.uniquindio.api.crud..*) && @annotation(org.springframework.transaction.annotation.Transactional))")
+    public Object limitar(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (conPermiso.get() != null) {
+            return joinPoint.proceed();
+        }
+        if (!permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+            logger.warn("Sin permiso para acceder a la base de datos tras {} ms", esperaMaximaMs);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "El servidor está ocupado, intente nuevamente");
+        }
+        conPermiso.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            conPermiso.remove();
+            permisos.release();
+        }
+    }
+
+    private static int tamanoPool(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            logger.warn("No se pudo leer el tamaño del pool de conexiones: {}", e.getMessage());
+        }
+        return 10;
+    }
+}
@@ -0,0 +1,287 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.dto.UsuarioCambioDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Flujo de cambios de usuarios (Server-Sent Events). {@link UsuarioService} publica cada creación,
+ * actualización y eliminación confirmada en un búfer circular en memoria de
+ * {@code usuarios.cambios.capacidad} eventos numerados; publicar solo escribe en el búfer, así un
+ * cliente lento nunca frena una escritura.
+ * <p>
+ * Cada suscriptor tiene su propio hilo que lee el búfer desde su posición y envía los eventos. El ID
+ * de cada evento ({@code época-secuencia}) permite reconectar con {@code Last-Event-ID} y continuar
+ * donde se quedó; si quedó demasiado atrás, o el ID es de otra ejecución del servidor, se envía un
+ * evento {@code REINICIO}: el cliente debe volver a leer la lista completa. Un suscriptor que
+ * queda más de {@code usuarios.cambios.retraso-maximo} eventos atrás se desconecta.
+ * <p>
+ * Publica {@code usuarios.cambios.publicados}, {@code usuarios.cambios.suscriptores} y los suscriptores
+ * desconectados por lentos en {@code usuarios.cambios.descartados}.
+ */
+@Component
+public class UsuarioCambios {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioCambios.class);
+
+    public static final String REINICIO = "REINICIO";
+
+    // Espera sugerida al cliente antes de reconectar
+    private static final long RECONEXION_MS = 3000;
+
+    private record Evento(long secuencia, UsuarioCambioDTO cambio) {
+    }
+
+    private final class Suscriptor {
+        final SseEmitter emitter;
+        volatile long posicion;
+        volatile boolean activo = true;
+
+        Suscriptor(SseEmitter emitter, long posicion) {
+            this.emitter = emitter;
+            this.posicion = posicion;
+        }
+
+        void cerrar() {
+            activo = false;
+            if (suscriptores.remove(this)) {
+                lock.lock();
+                try {
+                    nuevos.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Los ID de otra ejecución del servidor no se confunden con los de esta
+    private final String epoca = Long.toString(System.currentTimeMillis());
+
+    private final Evento[] eventos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition nuevos = lock.newCondition();
+    // Protegida por lock; 0 antes del primer evento
+    private long ultima;
+
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final int maxSuscriptores;
+    private final long retrasoMaximo;
+    private final Duration duracionMaxima;
+    private final Duration latido;
+    // Hilos de plataforma: SseEmitter.send() es synchronized y con un hilo virtual fijaría su portador
+    private final ExecutorService hilos;
+    private final Counter publicados;
+    private final Counter descartados;
+
+    public UsuarioCambios(MeterRegistry registry,
+                          @Value("${usuarios.cambios.capacidad:10000}") int capacidad,
+                          @Value("${usuarios.cambios.retraso-maximo:5000}") long retrasoMaximo,
+                          @Value("${usuarios.cambios.max-suscriptores:100}") int maxSuscriptores,
+                          @Value("${usuarios.cambios.duracion-maxima:30m}") Duration duracionMaxima,
+                          @Value("${usuarios.cambios.latido:15s}") Duration latido) {
+        this.eventos = new Evento[capacidad];
+        this.retrasoMaximo = Math.min(retrasoMaximo, capacidad);
+        this.maxSuscriptores = maxSuscriptores;
+        this.duracionMaxima = duracionMaxima;
+        this.latido = latido;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.hilos = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea, "cambios-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.publicados = Counter.builder("usuarios.cambios.publicados")
+                .description("Cambios de usuarios publicados en el flujo SSE").register(registry);
+        this.descartados = Counter.builder("usuarios.cambios.descartados")
+                .description("Suscriptores desconectados por quedar atrasados").register(registry);
+        Gauge.builder("usuarios.cambios.suscriptores", suscriptores, Set::size)
+                .description("Suscriptores conectados al flujo de cambios").register(registry);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        suscriptores.forEach(suscriptor -> suscriptor.emitter.complete());
+        hilos.shutdownNow();
+    }
+
+    /**
+     * Publica un cambio. Dentro de una transacción se publica al confirmarla; si se revierte, no se publica.
+     */
+    public void publicar(UsuarioCambioDTO cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    agregar(cambio);
+                }
+            });
+            return;
+        }
+        agregar(cambio);
+    }
+
+    private void agregar(UsuarioCambioDTO cambio) {
+        lock.lock();
+        try {
+            ultima++;
+            eventos[(int) ((ultima - 1) % eventos.length)] = new Evento(ultima, cambio);
+            nuevos.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        publicados.increment();
+    }
+
+    /**
+     * Abre un flujo de eventos. Sin {@code ultimoId} se envían solo los cambios posteriores a la conexión.
+     */
+    public SseEmitter suscribir(String ultimoId) {
+        if (suscriptores.size() >= maxSuscriptores) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Se alcanzó el máximo de " + maxSuscriptores + " suscriptores, intente más tarde");
+        }
+        long actual;
+        lock.lock();
+        try {
+            actual = ultima;
+        } finally {
+            lock.unlock();
+        }
+
+        // -1: reiniciar (el cliente perdió eventos o el ID no es de esta ejecución)
+        long posicion = actual;
+        if (ultimoId != null && !ultimoId.isBlank()) {
+            posicion = -1;
+            int guion = ultimoId.indexOf('-');
+            if (guion > 0 && ultimoId.substring(0, guion).equals(epoca)) {
+                try {
+                    long secuencia = Long.parseLong(ultimoId.substring(guion + 1));
+                    // Más atrás que retraso-maximo se desconectaría enseguida y volvería a reconectar igual
+                    if (secuencia <= actual && actual - secuencia <= retrasoMaximo) {
+                        posicion = secuencia;
+                    }
+                } catch (NumberFormatException e) {
+                    logger.debug("Last-Event-ID no válido: {}", ultimoId);
+                }
+            }
+        }
+
+        SseEmitter emitter = nuevoEmitter(duracionMaxima.toMillis());
+        Suscriptor suscriptor = new Suscriptor(emitter, posicion);
+        try {
+            // Desde este hilo: quedan en cola hasta que Spring inicializa la respuesta
+            emitter.send(SseEmitter.event().reconnectTime(RECONEXION_MS).comment("conectado"));
+            if (posicion < 0) {
+                reiniciar(suscriptor);
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo abrir el flujo de cambios");
+        }
+        suscriptores.add(suscriptor);
+        emitter.onCompletion(suscriptor::cerrar);
+        emitter.onTimeout(suscriptor::cerrar);
+        emitter.onError(error -> suscriptor.cerrar());
+        hilos.execute(() -> enviar(suscriptor));
+        logger.info("Nuevo suscriptor del flujo de cambios desde la secuencia {} ({} conectados)", posicion, suscriptores.size());
+        return emitter;
+    }
+
+    // Las pruebas lo reemplazan para leer los eventos enviados sin una respuesta HTTP
+    SseEmitter nuevoEmitter(long duracionMs) {
+        return new SseEmitter(duracionMs);
+    }
+
+    private void enviar(Suscriptor suscriptor) {
+        try {
+            while (suscriptor.activo) {
+                List<Evento> pendientes = new ArrayList<>();
+                boolean atrasado;
+                lock.lock();
+                try {
+                    if (suscriptor.posicion == ultima && suscriptor.activo) {
+                        nuevos.await(latido.toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                    atrasado = ultima - suscriptor.posicion > retrasoMaximo;
+                    for (long secuencia = suscriptor.posicion + 1; !atrasado && secuencia <= ultima; secuencia++) {
+                        pendientes.add(eventos[(int) ((secuencia - 1) % eventos.length)]);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                if (atrasado) {
+                    descartados.increment();
+                    logger.warn("Suscriptor del flujo de cambios desconectado por lento: {} eventos atrás", ultima() - suscriptor.posicion);
+                    suscriptor.emitter.complete();
+                    return;
+                }
+                if (pendientes.isEmpty()) {
+                    suscriptor.emitter.send(SseEmitter.event().comment("latido"));
+                }
+                for (Evento evento : pendientes) {
+                    suscriptor.emitter.send(SseEmitter.event()
+                            .id(epoca + "-" + evento.secuencia())
+                            .name(evento.cambio().tipo().name())
+                            .data(evento.cambio(), MediaType.APPLICATION_JSON));
+                    suscriptor.posicion = evento.secuencia();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            suscriptor.emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // El cliente cerró la conexión o el flujo ya terminó
+            logger.debug("Suscriptor del flujo de cambios desconectado: {}", e.getMessage());
+        } finally {
+            suscriptor.cerrar();
+        }
+    }
+
+    // Continúa desde el último evento: los anteriores los cubre la lectura completa que hará el cliente
+    private void reiniciar(Suscriptor suscriptor) throws IOException {
+        long actual = ultima();
+        suscriptor.emitter.send(SseEmitter.event()
+                .id(epoca + "-" + actual)
+                .name(REINICIO)
+                .data(Map.of("mensaje", "Eventos no disponibles; vuelva a leer la lista completa de usuarios"),
+                        MediaType.APPLICATION_JSON));
+        suscriptor.posicion = actual;
+    }
+
+    private long ultima() {
+        lock.lock();
+        try {
+            return ultima;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
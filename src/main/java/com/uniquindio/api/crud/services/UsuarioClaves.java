@@ -0,0 +1,193 @@
+package com.uniquindio.api.crud.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hash y verificación de claves con BCrypt en un pool de hilos propio y acotado, para que el costo
+ * de CPU no se reparta sin control entre los hilos de las solicitudes. El costo (work factor), los
+ * hilos y la cola se configuran con {@code usuarios.claves.*}; si la cola está llena la solicitud
+ * se rechaza con 503.
+ * <p>
+ * Los lotes no encolan todas sus claves a la vez: toman un permiso de {@code usuarios.claves.lote} por
+ * cada clave en curso, así un lote grande avanza sin llenar la cola y las creaciones individuales que
+ * llegan mientras tanto siguen encontrando lugar.
+ * <p>
+ * Publica las métricas del pool ({@code executor.queued}, {@code executor.active}... con
+ * {@code name=usuarios.claves}) y la duración de cada hash en {@code usuarios.claves.hash}.
+ */
+@Component
+public class UsuarioClaves {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioClaves.class);
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+    private final Semaphore lotes;
+    private final Duration esperaMaxima;
+    private final Timer hashTimer;
+    private final Timer verificacionTimer;
+
+    public UsuarioClaves(MeterRegistry registry,
+                         @Value("${usuarios.claves.costo:10}") int costo,
+                         @Value("${usuarios.claves.hilos:0}") int hilos,
+                         @Value("${usuarios.claves.cola:1000}") int cola,
+                         @Value("${usuarios.claves.lote:0}") int lote,
+                         @Value("${usuarios.claves.espera-maxima:10s}") Duration esperaMaxima) {
+        this.encoder = new BCryptPasswordEncoder(costo);
+        this.esperaMaxima = esperaMaxima;
+
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(tamano, tamano, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "claves-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(registry, pool, "usuarios.claves");
+        // Dos por hilo: mientras un hilo hashea una clave del lote, la siguiente ya espera en la cola
+        int enCurso = lote > 0 ? lote : 2 * tamano;
+        this.lotes = new Semaphore(Math.min(enCurso, cola));
+
+        this.hashTimer = Timer.builder("usuarios.claves.hash")
+                .description("Duración de cada hash BCrypt").tag("costo", String.valueOf(costo))
+                .publishPercentileHistogram().register(registry);
+        this.verificacionTimer = Timer.builder("usuarios.claves.verificacion")
+                .description("Duración de cada verificación BCrypt").publishPercentileHistogram().register(registry);
+
+        logger.info("Hash de claves con BCrypt de costo {} en {} hilos, cola de {} ({} por lotes)", costo, tamano, cola,
+                lotes.availablePermits());
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        pool.shutdown();
+    }
+
+    /** Encola el hash de una clave. Lanza 503 si la cola está llena. */
+    public CompletableFuture<String> hashearAsync(String clave) {
+        try {
+            return CompletableFuture.supplyAsync(() -> hashTimer.record(() -> encoder.encode(clave)), executor);
+        } catch (RejectedExecutionException e) {
+            throw saturado();
+        }
+    }
+
+    public String hashear(String clave) {
+        return esperar(hashearAsync(clave));
+    }
+
+    /**
+     * Hashea las claves en paralelo en todos los hilos del pool; el resultado conserva el orden. Cada
+     * clave espera un permiso de los lotes antes de encolarse y lo devuelve al terminar: los lotes en
+     * curso ocupan a lo sumo {@code usuarios.claves.lote} lugares de la cola. Lanza 503 si no obtiene
+     * un permiso en {@code usuarios.claves.espera-maxima}.
+     */
+    public List<String> hashear(List<String> claves) {
+        List<CompletableFuture<String>> pendientes = new ArrayList<>(claves.size());
+        try {
+            for (String clave : claves) {
+                if (!lotes.tryAcquire(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw saturado();
+                }
+                CompletableFuture<String> pendiente;
+                try {
+                    pendiente = hashearAsync(clave);
+                } catch (ResponseStatusException e) {
+                    lotes.release();
+                    throw e;
+                }
+                pendiente.whenComplete((hash, error) -> lotes.release());
+                pendientes.add(pendiente);
+            }
+        } catch (InterruptedException e) {
+            pendientes.forEach(pendiente -> pendiente.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Solicitud interrumpida");
+        } catch (ResponseStatusException e) {
+            pendientes.forEach(pendiente -> pendiente.cancel(false));
+            throw e;
+        }
+        return pendientes.stream().map(this::esperar).toList();
+    }
+
+    /**
+     * {@code true} si la clave corresponde al hash. Los valores guardados antes de usar BCrypt (texto
+     * plano) se comparan en tiempo constante; {@link #requiereRehash(String)} indica que deben reemplazarse.
+     */
+    public boolean verificar(String clave, String guardada) {
+        if (guardada == null) {
+            return false;
+        }
+        if (!esHash(guardada)) {
+            return clave != null && MessageDigest.isEqual(guardada.getBytes(StandardCharsets.UTF_8),
+                    clave.getBytes(StandardCharsets.UTF_8));
+        }
+        CompletableFuture<Boolean> resultado;
+        try {
+            resultado = CompletableFuture.supplyAsync(
+                    () -> verificacionTimer.record(() -> encoder.matches(clave, guardada)), executor);
+        } catch (RejectedExecutionException e) {
+            throw saturado();
+        }
+        return esperar(resultado);
+    }
+
+    /** El valor guardado es texto plano o un hash con un costo distinto al configurado. */
+    public boolean requiereRehash(String guardada) {
+        return !esHash(guardada) || encoder.upgradeEncoding(guardada);
+    }
+
+    private static boolean esHash(String valor) {
+        return valor.startsWith("$2a$") || valor.startsWith("$2b$") || valor.startsWith("$2y$");
+    }
+
+    private <T> T esperar(Future<T> futuro) {
+        try {
+            return futuro.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(false);
+            throw saturado();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Solicitud interrumpida");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al procesar la clave", e.getCause());
+        }
+    }
+
+    private static ResponseStatusException saturado() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "El servicio de claves está saturado, intente más tarde");
+    }
+}
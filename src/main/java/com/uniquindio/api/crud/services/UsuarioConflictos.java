@@ -0,0 +1,60 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.model.Usuario;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Traduce las violaciones de las restricciones únicas de {@link Usuario} a respuestas 409,
+ * de modo que la escritura no necesite consultar antes si la cédula o el correo existen.
+ */
+final class UsuarioConflictos {
+
+    // Código de MySQL para "Duplicate entry" y SQLState estándar de violación de unicidad
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+    private static final String SQLSTATE_UNIQUE_VIOLATION = "23505";
+
+    private UsuarioConflictos() {
+    }
+
+    /** Si la violación es de la cédula o el correo únicos (y no de otra restricción). */
+    static boolean esConflicto(DataIntegrityViolationException e) {
+        String restriccion = restriccionDuplicada(e);
+        return restriccion.contains(Usuario.UK_CEDULA) || restriccion.contains(Usuario.UK_EMAIL);
+    }
+
+    static ResponseStatusException traducir(DataIntegrityViolationException e, String mensajeCedula, String mensajeEmail) {
+        String restriccion = restriccionDuplicada(e);
+        if (restriccion.contains(Usuario.UK_CEDULA)) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, mensajeCedula);
+        }
+        if (restriccion.contains(Usuario.UK_EMAIL)) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, mensajeEmail);
+        }
+        // Cualquier otro duplicado (clave primaria, otra restricción) no es culpa del cliente
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor", e);
+    }
+
+    // Nombre de la restricción violada, o el mensaje del controlador si Hibernate no pudo extraerlo;
+    // vacío si la violación no es de unicidad
+    private static String restriccionDuplicada(DataIntegrityViolationException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve && cve.getConstraintName() != null) {
+                return cve.getConstraintName().toLowerCase(Locale.ROOT);
+            }
+            if (t instanceof SQLException sql && esDuplicado(sql) && sql.getMessage() != null) {
+                return sql.getMessage().toLowerCase(Locale.ROOT);
+            }
+        }
+        return "";
+    }
+
+    private static boolean esDuplicado(SQLException sql) {
+        return sql.getErrorCode() == MYSQL_DUPLICATE_ENTRY || SQLSTATE_UNIQUE_VIOLATION.equals(sql.getSQLState());
+    }
+}
@@ -0,0 +1,194 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.config.LecturaPrimaria;
+import com.uniquindio.api.crud.dto.UsuarioConteoDTO;
+import com.uniquindio.api.crud.dto.UsuarioConteosResponseDTO;
+import com.uniquindio.api.crud.model.RolUsuario;
+import com.uniquindio.api.crud.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conteos en memoria de usuarios por rol y clase, y del total. Se cargan de la base de datos con una
+ * sola consulta agrupada al arrancar y luego los ajusta {@link UsuarioService} con cada escritura, al
+ * confirmarse: las creaciones con el rol y la clase nuevos, y las eliminaciones y los cambios de rol o
+ * clase con los valores que leyó (bloqueados) en la misma transacción.
+ * <p>
+ * Las escrituras de otras instancias no pasan por aquí, así que el total es una estimación; la
+ * reconciliación periódica vuelve a igualar los conteos con la base de datos.
+ */
+@Component
+public class UsuarioConteos {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioConteos.class);
+
+    private record Grupo(RolUsuario rol, String clase) {
+    }
+
+    private final UsuarioRepository usuarioRepository;
+    private final ConcurrentMap<Grupo, AtomicLong> grupos = new ConcurrentHashMap<>();
+    private final AtomicLong total = new AtomicLong();
+    private final Counter correcciones;
+    private volatile boolean listo;
+
+    public UsuarioConteos(UsuarioRepository usuarioRepository, MeterRegistry registry) {
+        this.usuarioRepository = usuarioRepository;
+
+        Gauge.builder("usuarios.conteos.total", total, AtomicLong::get)
+                .description("Total de usuarios según los conteos en memoria").register(registry);
+        this.correcciones = Counter.builder("usuarios.conteos.correcciones")
+                .description("Grupos rol/clase corregidos por la reconciliación").register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        reconciliar();
+        listo = true;
+    }
+
+    /**
+     * Corrige los conteos con los de la base de datos. La corrección se suma como diferencia contra los
+     * conteos tomados antes de la consulta, así no se pierden los ajustes de las escrituras que se
+     * confirman mientras tanto. Las diferencias encontradas se registran en
+     * {@code usuarios.conteos.correcciones}.
+     */
+    @Scheduled(initialDelayString = "${usuarios.conteos.reconciliacion:PT5M}",
+            fixedDelayString = "${usuarios.conteos.reconciliacion:PT5M}")
+    public void reconciliar() {
+        long inicio = System.nanoTime();
+        Map<Grupo, Long> antes = new HashMap<>();
+        grupos.forEach((grupo, cantidad) -> antes.put(grupo, cantidad.get()));
+        long totalAntes = total.get();
+
+        Map<Grupo, Long> reales = new HashMap<>();
+        // Del primario: con una réplica atrasada los conteos quedarían mal hasta la próxima reconciliación
+        for (UsuarioRepository.ConteoRolClase fila : LecturaPrimaria.ejecutar(usuarioRepository::countByRolAndClase)) {
+            reales.put(new Grupo(fila.getRol(), fila.getClase()), fila.getCantidad());
+        }
+
+        // Una escritura confirmada entre la copia y la consulta queda contada dos veces hasta la
+        // próxima reconciliación, que la descuenta
+        Set<Grupo> todos = new HashSet<>(antes.keySet());
+        todos.addAll(reales.keySet());
+        int corregidos = 0;
+        for (Grupo grupo : todos) {
+            long diferencia = reales.getOrDefault(grupo, 0L) - antes.getOrDefault(grupo, 0L);
+            if (diferencia != 0) {
+                grupos.computeIfAbsent(grupo, g -> new AtomicLong()).addAndGet(diferencia);
+                corregidos++;
+            }
+        }
+        total.addAndGet(reales.values().stream().mapToLong(Long::longValue).sum() - totalAntes);
+
+        if (listo && corregidos > 0) {
+            correcciones.increment(corregidos);
+            logger.warn("Reconciliación de conteos: {} grupos corregidos", corregidos);
+        }
+        logger.debug("Conteos reconciliados en {} ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /** Registra que un usuario pasó de (rolAnterior, claseAnterior) a (rolNuevo, claseNuevo). */
+    void mover(RolUsuario rolAnterior, String claseAnterior, RolUsuario rolNuevo, String claseNuevo) {
+        Grupo anterior = new Grupo(rolAnterior, claseAnterior);
+        Grupo nuevo = new Grupo(rolNuevo, claseNuevo);
+        if (!anterior.equals(nuevo)) {
+            alConfirmar(() -> {
+                grupos.computeIfAbsent(anterior, g -> new AtomicLong()).decrementAndGet();
+                grupos.computeIfAbsent(nuevo, g -> new AtomicLong()).incrementAndGet();
+            });
+        }
+    }
+
+    /**
+     * Registra una actualización parcial de un usuario que tenía el rol y la clase de {@code anterior}:
+     * los que no están en {@code cambios} se conservan.
+     */
+    void actualizar(UsuarioRepository.RolClase anterior, Map<String, Object> cambios) {
+        mover(anterior.getRol(), anterior.getClase(),
+                cambios.containsKey("rol") ? (RolUsuario) cambios.get("rol") : anterior.getRol(),
+                cambios.containsKey("clase") ? (String) cambios.get("clase") : anterior.getClase());
+    }
+
+    /** Si una actualización parcial puede cambiar al usuario de grupo. */
+    static boolean cambiaGrupo(Map<String, Object> cambios) {
+        return cambios.containsKey("rol") || cambios.containsKey("clase");
+    }
+
+    void agregar(RolUsuario rol, String clase) {
+        Grupo grupo = new Grupo(rol, clase);
+        alConfirmar(() -> {
+            grupos.computeIfAbsent(grupo, g -> new AtomicLong()).incrementAndGet();
+            total.incrementAndGet();
+        });
+    }
+
+    void quitar(RolUsuario rol, String clase) {
+        quitar(rol, clase, 1);
+    }
+
+    void quitar(RolUsuario rol, String clase, long cantidad) {
+        if (cantidad == 0) {
+            return;
+        }
+        Grupo grupo = new Grupo(rol, clase);
+        alConfirmar(() -> {
+            grupos.computeIfAbsent(grupo, g -> new AtomicLong()).addAndGet(-cantidad);
+            total.addAndGet(-cantidad);
+        });
+    }
+
+    // Dentro de una transacción el ajuste espera a la confirmación y se descarta si se revierte
+    private static void alConfirmar(Runnable ajuste) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ajuste.run();
+                }
+            });
+            return;
+        }
+        ajuste.run();
+    }
+
+    /** Total estimado de usuarios (ver la clase), o -1 mientras los conteos no se han cargado. */
+    public long total() {
+        return listo ? total.get() : -1;
+    }
+
+    public UsuarioConteosResponseDTO resumen() {
+        List<UsuarioConteoDTO> lista = grupos.entrySet().stream()
+                .filter(grupo -> grupo.getValue().get() > 0)
+                .map(grupo -> new UsuarioConteoDTO(
+                        grupo.getKey().rol() != null ? grupo.getKey().rol().name() : null,
+                        grupo.getKey().clase(),
+                        grupo.getValue().get()))
+                .sorted(Comparator.comparing(UsuarioConteoDTO::clase, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(UsuarioConteoDTO::rol, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+        return new UsuarioConteosResponseDTO(total.get(), lista);
+    }
+
+    public boolean listo() {
+        return listo;
+    }
+}
@@ -0,0 +1,307 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.model.Usuario;
+import com.uniquindio.api.crud.repository.UsuarioRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Escrituras agrupadas (group commit), opcionales ({@code usuarios.escrituras.agrupadas}). Las
+ * creaciones y actualizaciones de {@link UsuarioService} se encolan y un único hilo las confirma en
+ * grupos de hasta {@code usuarios.escrituras.lote} escrituras, o las que lleguen en
+ * {@code usuarios.escrituras.ventana}, en una sola transacción: los INSERT van en lotes JDBC y las
+ * actualizaciones del mismo ID dentro de un grupo se combinan en un solo UPDATE (la última gana
+ * campo a campo). Cada solicitud espera el resultado de su escritura.
+ * <p>
+ * Si el grupo viola una restricción única se revierte y sus escrituras se repiten una a una, así
+ * cada solicitud recibe su propio 409; las actualizaciones combinadas también se repiten por separado,
+ * en el orden en que llegaron, para que un PATCH válido no reciba el conflicto de otro. Tras
+ * confirmar, este mismo hilo actualiza el filtro de existencia y el índice, en orden de confirmación.
+ * <p>
+ * Publica el tamaño de cada grupo en {@code usuarios.escrituras.grupo} y las escrituras en cola en
+ * {@code usuarios.escrituras.cola}.
+ */
+@Component
+@ConditionalOnProperty(name = "usuarios.escrituras.agrupadas", havingValue = "true")
+public class UsuarioEscrituras {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioEscrituras.class);
+
+    private static final String CEDULA_REGISTRADA = "La cédula ya está registrada";
+    private static final String EMAIL_REGISTRADO = "El correo ya está registrado";
+    private static final String CEDULA_EN_USO = "Cédula ya está en uso por otro usuario.";
+    private static final String EMAIL_EN_USO = "Correo ya está en uso por otro usuario.";
+
+    private final UsuarioRepository usuarioRepository;
+    private final UsuarioExistenciaFiltro existenciaFiltro;
+    private final UsuarioIndice usuarioIndice;
+    private final UsuarioConteos conteos;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Escritura> cola;
+    private final int lote;
+    private final long ventanaNanos;
+    private final Duration esperaMaxima;
+    private final DistributionSummary tamanoGrupo;
+    private final Thread hilo;
+    private volatile boolean activo = true;
+
+    private sealed interface Escritura permits Creacion, Actualizacion {
+    }
+
+    private record Creacion(Usuario usuario, CompletableFuture<Usuario> resultado) implements Escritura {
+    }
+
+    private record Actualizacion(Long id, Map<String, Object> cambios, CompletableFuture<Integer> resultado)
+            implements Escritura {
+    }
+
+    // Actualizaciones de un mismo ID dentro de un grupo, combinadas en un solo UPDATE
+    private static final class Combinada {
+        final Map<String, Object> cambios = new LinkedHashMap<>();
+        final List<Actualizacion> originales = new ArrayList<>();
+        int filas;
+        UsuarioRepository.RolClase anterior;
+    }
+
+    public UsuarioEscrituras(UsuarioRepository usuarioRepository,
+                             UsuarioExistenciaFiltro existenciaFiltro,
+                             UsuarioIndice usuarioIndice,
+                             UsuarioConteos conteos,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry registry,
+                             @Value("${usuarios.escrituras.lote:64}") int lote,
+                             @Value("${usuarios.escrituras.ventana:5ms}") Duration ventana,
+                             @Value("${usuarios.escrituras.cola:10000}") int cola,
+                             @Value("${usuarios.escrituras.espera-maxima:10s}") Duration esperaMaxima) {
+        this.usuarioRepository = usuarioRepository;
+        this.existenciaFiltro = existenciaFiltro;
+        this.usuarioIndice = usuarioIndice;
+        this.conteos = conteos;
+        this.transactionTemplate = transactionTemplate;
+        this.cola = new LinkedBlockingQueue<>(cola);
+        this.lote = lote;
+        this.ventanaNanos = ventana.toNanos();
+        this.esperaMaxima = esperaMaxima;
+
+        this.tamanoGrupo = DistributionSummary.builder("usuarios.escrituras.grupo")
+                .description("Escrituras confirmadas en cada transacción agrupada").publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("usuarios.escrituras.cola", this.cola, Collection::size)
+                .description("Escrituras esperando su transacción agrupada").register(registry);
+
+        this.hilo = new Thread(this::procesarCola, "escrituras-agrupadas");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+        logger.info("Escrituras agrupadas activas: hasta {} por transacción o cada {} ms, cola de {}",
+                lote, ventana.toMillis(), cola);
+    }
+
+    /** Confirma las escrituras ya encoladas y detiene el hilo. */
+    @PreDestroy
+    public void cerrar() throws InterruptedException {
+        activo = false;
+        hilo.join(esperaMaxima.toMillis());
+    }
+
+    /** Inserta el usuario (con la clave ya hasheada) y lo devuelve con su ID. Lanza 409 o 503. */
+    public Usuario crear(Usuario usuario) {
+        CompletableFuture<Usuario> resultado = new CompletableFuture<>();
+        encolar(new Creacion(usuario, resultado));
+        return esperar(resultado);
+    }
+
+    /** Aplica los cambios (atributo → valor) y devuelve las filas modificadas: 0 si el ID no existe. */
+    public int actualizar(Long id, Map<String, Object> cambios) {
+        CompletableFuture<Integer> resultado = new CompletableFuture<>();
+        encolar(new Actualizacion(id, cambios, resultado));
+        return esperar(resultado);
+    }
+
+    private void encolar(Escritura escritura) {
+        if (!activo || !cola.offer(escritura)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "El servidor está ocupado, intente nuevamente");
+        }
+    }
+
+    private <T> T esperar(CompletableFuture<T> resultado) {
+        try {
+            return resultado.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // La escritura puede confirmarse después; el cliente debe consultar antes de reintentar
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "La escritura no se confirmó a tiempo, verifique antes de reintentar");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Solicitud interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResponseStatusException error) {
+                throw error;
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor", e.getCause());
+        }
+    }
+
+    // Toma la primera escritura disponible y completa el grupo hasta llenar el lote o cerrar la ventana
+    private void procesarCola() {
+        List<Escritura> grupo = new ArrayList<>(lote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Escritura primera = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                grupo.add(primera);
+                long fin = System.nanoTime() + ventanaNanos;
+                while (grupo.size() < lote) {
+                    Escritura siguiente = cola.poll(fin - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    grupo.add(siguiente);
+                }
+                confirmar(grupo);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Error inesperado en las escrituras agrupadas", e);
+            } finally {
+                grupo.clear();
+            }
+        }
+    }
+
+    private void confirmar(List<Escritura> grupo) {
+        List<Creacion> creaciones = new ArrayList<>();
+        Map<Long, Combinada> actualizaciones = new LinkedHashMap<>();
+        for (Escritura escritura : grupo) {
+            if (escritura instanceof Creacion creacion) {
+                creaciones.add(creacion);
+            } else if (escritura instanceof Actualizacion actualizacion) {
+                Combinada combinada = actualizaciones.computeIfAbsent(actualizacion.id(), id -> new Combinada());
+                combinada.cambios.putAll(actualizacion.cambios());
+                combinada.originales.add(actualizacion);
+            }
+        }
+        tamanoGrupo.record(grupo.size());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!creaciones.isEmpty()) {
+                    usuarioRepository.saveAll(creaciones.stream().map(Creacion::usuario).toList());
+                    usuarioRepository.flush();
+                }
+                // El rol y la clase anteriores de los que cambian de grupo, para los conteos
+                List<Long> cambianGrupo = actualizaciones.entrySet().stream()
+                        .filter(entrada -> UsuarioConteos.cambiaGrupo(entrada.getValue().cambios))
+                        .map(Map.Entry::getKey)
+                        .toList();
+                if (!cambianGrupo.isEmpty()) {
+                    usuarioRepository.bloquearExistentes(cambianGrupo)
+                            .forEach(anterior -> actualizaciones.get(anterior.getId()).anterior = anterior);
+                }
+                actualizaciones.forEach((id, combinada) ->
+                        combinada.filas = usuarioRepository.actualizarCampos(id, combinada.cambios));
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Conflicto de unicidad en un grupo de {} escrituras, repitiéndolas una a una", grupo.size());
+            creaciones.forEach(this::crearSola);
+            actualizaciones.values().forEach(combinada -> combinada.originales.forEach(this::actualizarSola));
+            return;
+        } catch (RuntimeException e) {
+            logger.error("Error inesperado al confirmar un grupo de {} escrituras: {}", grupo.size(), e.getMessage());
+            ResponseStatusException error = new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor");
+            creaciones.forEach(creacion -> creacion.resultado().completeExceptionally(error));
+            actualizaciones.values().forEach(combinada ->
+                    combinada.originales.forEach(actualizacion -> actualizacion.resultado().completeExceptionally(error)));
+            return;
+        }
+
+        creaciones.forEach(this::creada);
+        actualizaciones.forEach((id, combinada) -> {
+            actualizada(id, combinada.cambios, combinada.filas, combinada.anterior);
+            combinada.originales.forEach(actualizacion -> actualizacion.resultado().complete(combinada.filas));
+        });
+    }
+
+    private void crearSola(Creacion creacion) {
+        // El intento agrupado pudo dejar asignados el ID y la versión de la transacción revertida
+        Usuario usuario = creacion.usuario();
+        usuario.setId(null);
+        usuario.setVersion(null);
+        try {
+            transactionTemplate.executeWithoutResult(status -> usuarioRepository.saveAndFlush(usuario));
+            creada(creacion);
+        } catch (DataIntegrityViolationException e) {
+            creacion.resultado().completeExceptionally(UsuarioConflictos.traducir(e, CEDULA_REGISTRADA, EMAIL_REGISTRADO));
+        } catch (RuntimeException e) {
+            logger.error("Error inesperado al guardar usuario: {}", e.getMessage());
+            creacion.resultado().completeExceptionally(
+                    new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor"));
+        }
+    }
+
+    private void actualizarSola(Actualizacion actualizacion) {
+        Long id = actualizacion.id();
+        Combinada sola = new Combinada();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (UsuarioConteos.cambiaGrupo(actualizacion.cambios())) {
+                    usuarioRepository.bloquearExistentes(List.of(id)).forEach(anterior -> sola.anterior = anterior);
+                }
+                sola.filas = usuarioRepository.actualizarCampos(id, actualizacion.cambios());
+            });
+            actualizada(id, actualizacion.cambios(), sola.filas, sola.anterior);
+            actualizacion.resultado().complete(sola.filas);
+        } catch (DataIntegrityViolationException e) {
+            actualizacion.resultado().completeExceptionally(UsuarioConflictos.traducir(e, CEDULA_EN_USO, EMAIL_EN_USO));
+        } catch (RuntimeException e) {
+            logger.error("Error inesperado al actualizar usuario con ID {}: {}", id, e.getMessage());
+            actualizacion.resultado().completeExceptionally(
+                    new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo actualizar el usuario"));
+        }
+    }
+
+    private void creada(Creacion creacion) {
+        Usuario usuario = creacion.usuario();
+        existenciaFiltro.registrar(usuario.getCedula(), usuario.getEmail());
+        usuarioIndice.registrar(usuario);
+        conteos.agregar(usuario.getRol(), usuario.getClase());
+        creacion.resultado().complete(usuario);
+    }
+
+    private void actualizada(Long id, Map<String, Object> cambios, int filas, UsuarioRepository.RolClase anterior) {
+        if (filas > 0) {
+            existenciaFiltro.registrar((String) cambios.get("cedula"), (String) cambios.get("email"));
+            usuarioIndice.actualizarCampos(id, cambios);
+            if (anterior != null) {
+                conteos.actualizar(anterior, cambios);
+            }
+        }
+    }
+}
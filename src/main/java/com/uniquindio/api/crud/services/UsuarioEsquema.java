@@ -0,0 +1,128 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.model.Usuario;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Ajusta al arrancar el esquema de las bases creadas por versiones anteriores, que
+ * {@code ddl-auto=update} no corrige porque solo agrega. Se ejecuta mientras arranca el contexto,
+ * después de que Hibernate actualiza el esquema y antes de que el servidor acepte solicitudes.
+ * <ul>
+ *     <li>La secuencia {@value Usuario#SECUENCIA} se lleva más allá del mayor ID existente. Las bases
+ *     creadas cuando el ID era IDENTITY ya tienen usuarios, y la secuencia nueva empieza en 1: los
+ *     nuevos ID chocarían con los existentes. Hibernate toma bloques de {@link Usuario#BLOQUE_ID} ID
+ *     cuyo tope es el valor que entrega la secuencia, así que el siguiente valor debe ser al menos
+ *     {@code MAX(id) + BLOQUE_ID}. En MySQL la secuencia es una tabla con la columna {@code next_val};
+ *     en H2, una secuencia nativa.</li>
+ *     <li>Se eliminan las restricciones únicas sobre la cédula o el correo que no son
+ *     {@link Usuario#UK_CEDULA} o {@link Usuario#UK_EMAIL} (las {@code UK…} que generaba
+ *     {@code @Column(unique = true)}). Con ambas, un duplicado podía reportarse con el nombre viejo y
+ *     {@link UsuarioConflictos} no lo reconocía como 409.</li>
+ * </ul>
+ */
+@Component
+public class UsuarioEsquema {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioEsquema.class);
+
+    private static final Set<String> RESTRICCIONES = Set.of(Usuario.UK_CEDULA, Usuario.UK_EMAIL);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // EntityManagerFactory solo ordena el arranque: el esquema ya está actualizado por Hibernate
+    public UsuarioEsquema(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void ajustar() {
+        String producto = productoBaseDatos();
+        eliminarRestriccionesHeredadas(producto);
+        ajustarSecuencia(producto);
+    }
+
+    private void eliminarRestriccionesHeredadas(String producto) {
+        String esquema = esquema(producto);
+        if (esquema == null) {
+            return;
+        }
+        // Restricciones únicas de una sola columna sobre la cédula o el correo
+        List<String> heredadas = jdbcTemplate.queryForList("""
+                        select tc.constraint_name from information_schema.table_constraints tc
+                        join information_schema.key_column_usage kcu on kcu.constraint_schema = tc.constraint_schema
+                            and kcu.constraint_name = tc.constraint_name and kcu.table_name = tc.table_name
+                        where tc.table_schema = ? and lower(tc.table_name) = 'usuarios' and tc.constraint_type = 'UNIQUE'
+                        group by tc.constraint_name
+                        having count(*) = 1 and lower(max(kcu.column_name)) in ('cedula', 'email')""",
+                String.class, esquema);
+        for (String restriccion : heredadas) {
+            if (RESTRICCIONES.contains(restriccion.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            jdbcTemplate.execute("alter table usuarios drop constraint " + restriccion);
+            logger.warn("Restricción única heredada {} eliminada de la tabla usuarios", restriccion);
+        }
+    }
+
+    private void ajustarSecuencia(String producto) {
+        Long maximo = jdbcTemplate.queryForObject("select max(id) from usuarios", Long.class);
+        if (maximo == null) {
+            return;
+        }
+        long siguiente = maximo + Usuario.BLOQUE_ID;
+
+        if (esMysql(producto)) {
+            int filas = jdbcTemplate.update("update " + Usuario.SECUENCIA + " set next_val = ? where next_val < ?",
+                    siguiente, siguiente);
+            if (filas > 0) {
+                logger.warn("Secuencia {} adelantada a {} para continuar después del ID {}", Usuario.SECUENCIA, siguiente, maximo);
+            }
+        } else if (producto.contains("h2")) {
+            Long actual = jdbcTemplate.queryForObject(
+                    "select base_value from information_schema.sequences where lower(sequence_name) = ?",
+                    Long.class, Usuario.SECUENCIA);
+            if (actual != null && actual < siguiente) {
+                jdbcTemplate.execute("alter sequence " + Usuario.SECUENCIA + " restart with " + siguiente);
+                logger.warn("Secuencia {} adelantada a {} para continuar después del ID {}", Usuario.SECUENCIA, siguiente, maximo);
+            }
+        } else {
+            logger.warn("No se verificó la secuencia {} en {}: debe entregar al menos {}", Usuario.SECUENCIA, producto, siguiente);
+        }
+    }
+
+    private static boolean esMysql(String producto) {
+        return producto.contains("mysql") || producto.contains("mariadb");
+    }
+
+    // En MySQL el esquema de information_schema es el catálogo de la conexión (la base de datos)
+    private String esquema(String producto) {
+        if (!esMysql(producto) && !producto.contains("h2")) {
+            logger.warn("No se verificaron las restricciones únicas heredadas en {}", producto);
+            return null;
+        }
+        return jdbcTemplate.execute((Connection conexion) -> esMysql(producto) ? conexion.getCatalog() : conexion.getSchema());
+    }
+
+    private String productoBaseDatos() {
+        try {
+            String producto = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            return producto.toLowerCase(Locale.ROOT);
+        } catch (Exception e) {
+            logger.warn("No se pudo identificar la base de datos: {}", e.getMessage());
+            return "";
+        }
+    }
+}
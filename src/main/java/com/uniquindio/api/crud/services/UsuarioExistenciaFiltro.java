@@ -0,0 +1,108 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.config.LecturaPrimaria;
+import com.uniquindio.api.crud.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Filtros de Bloom en memoria con todas las cédulas y correos registrados. Se construyen desde la
+ * tabla al arrancar y se actualizan en cada escritura; cuando responden "no existe" la consulta a
+ * MySQL se omite. Mientras se construyen responden siempre "quizás".
+ * <p>
+ * Los borrados y cambios de cédula o correo dejan bits encendidos: solo suben la tasa de falsos
+ * positivos (publicada en {@code usuarios.filtro.fpp}), nunca producen falsos negativos.
+ */
+@Component
+public class UsuarioExistenciaFiltro {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioExistenciaFiltro.class);
+
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final FiltroBloom cedulas;
+    private final FiltroBloom emails;
+    private final Counter negativos;
+    private final Counter posibles;
+    private final Counter falsosPositivos;
+    private volatile boolean listo;
+
+    public UsuarioExistenciaFiltro(UsuarioRepository usuarioRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry registry,
+                                   @Value("${usuarios.filtro.capacidad:1000000}") long capacidad,
+                                   @Value("${usuarios.filtro.fpp:0.01}") double fpp) {
+        this.usuarioRepository = usuarioRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setReadOnly(true);
+        this.cedulas = new FiltroBloom(capacidad, fpp);
+        this.emails = new FiltroBloom(capacidad, fpp);
+
+        Gauge.builder("usuarios.filtro.fpp", cedulas, FiltroBloom::fppEstimada)
+                .description("Probabilidad estimada de falso positivo").tag("campo", "cedula").register(registry);
+        Gauge.builder("usuarios.filtro.fpp", emails, FiltroBloom::fppEstimada)
+                .description("Probabilidad estimada de falso positivo").tag("campo", "email").register(registry);
+        Gauge.builder("usuarios.filtro.memoria", cedulas, FiltroBloom::bytes)
+                .baseUnit("bytes").tag("campo", "cedula").register(registry);
+        Gauge.builder("usuarios.filtro.memoria", emails, FiltroBloom::bytes)
+                .baseUnit("bytes").tag("campo", "email").register(registry);
+        this.negativos = Counter.builder("usuarios.filtro.consultas")
+                .description("Verificaciones de existencia resueltas por el filtro")
+                .tag("resultado", "negativo").register(registry);
+        this.posibles = Counter.builder("usuarios.filtro.consultas")
+                .description("Verificaciones de existencia resueltas por el filtro")
+                .tag("resultado", "posible").register(registry);
+        this.falsosPositivos = Counter.builder("usuarios.filtro.falsos.positivos")
+                .description("Posibles positivos que la base de datos descartó").register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        // Del primario: lo que falte en una réplica atrasada no lo corrige ninguna escritura posterior
+        long filas = LecturaPrimaria.ejecutar(() -> transactionTemplate.execute(status -> {
+            long n = 0;
+            try (Stream<UsuarioRepository.CedulaEmail> todos = usuarioRepository.streamCedulaEmail()) {
+                for (Iterator<UsuarioRepository.CedulaEmail> it = todos.iterator(); it.hasNext(); n++) {
+                    UsuarioRepository.CedulaEmail usuario = it.next();
+                    registrar(usuario.getCedula(), usuario.getEmail());
+                }
+            }
+            return n;
+        }));
+        listo = true;
+        logger.info("Filtro de existencia construido con {} usuarios en {} ms", filas,
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /** {@code false} solo si ningún usuario tiene esta cédula ni este correo. */
+    public boolean puedeExistir(String cedula, String email) {
+        boolean posible = !listo || cedulas.puedeContener(cedula) || emails.puedeContener(email);
+        (posible ? posibles : negativos).increment();
+        return posible;
+    }
+
+    public void registrar(String cedula, String email) {
+        if (cedula != null) {
+            cedulas.agregar(cedula);
+        }
+        if (email != null) {
+            emails.agregar(email);
+        }
+    }
+
+    public void registrarFalsoPositivo() {
+        falsosPositivos.increment();
+    }
+}
@@ -0,0 +1,142 @@
+package com.uniquindio.api.crud.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Respuestas por clave de idempotencia (encabezado {@code Idempotency-Key}) en memoria, con
+ * capacidad máxima y expiración ({@code usuarios.idempotencia.*}). La primera solicitud con una
+ * clave ejecuta la operación; las repeticiones reciben la misma respuesta sin tocar la base de
+ * datos, y si llegan mientras la primera sigue en curso la esperan.
+ * <p>
+ * Cada clave guarda la huella de su solicitud: reutilizarla con otro contenido responde 422. Las
+ * respuestas que no deben repetirse (p. ej. 5xx) se descartan para que el cliente pueda reintentar.
+ * Las métricas de aciertos y desalojos se publican como {@code cache.*} con
+ * {@code cache=usuarios.idempotencia}, con las mismas etiquetas que Spring pone a la caché
+ * {@code usuarios} para que Prometheus acepte ambas series.
+ */
+@Component
+public class UsuarioIdempotencia {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioIdempotencia.class);
+
+    public static final String ENCABEZADO = "Idempotency-Key";
+
+    // Longitud máxima aceptada para la clave enviada por el cliente
+    private static final int MAX_LARGO_CLAVE = 255;
+
+    private final Cache<String, Entrada> entradas;
+    private final Duration esperaMaxima;
+
+    private record Entrada(String huella, CompletableFuture<Object> respuesta) {
+    }
+
+    /**
+     * @param repetida {@code true} si el valor es el de una solicitud anterior con la misma clave
+     */
+    public record Respuesta<T>(T valor, boolean repetida) {
+    }
+
+    public UsuarioIdempotencia(MeterRegistry registry,
+                               @Value("${usuarios.idempotencia.capacidad:100000}") long capacidad,
+                               @Value("${usuarios.idempotencia.ttl:24h}") Duration ttl,
+                               @Value("${usuarios.idempotencia.espera-maxima:10s}") Duration esperaMaxima) {
+        this.entradas = Caffeine.newBuilder()
+                .maximumSize(capacidad)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.esperaMaxima = esperaMaxima;
+        // Prometheus exige el mismo conjunto de etiquetas para un mismo nombre de métrica: sin
+        // cache.manager y name descartaría estas series o las de la caché usuarios
+        CaffeineCacheMetrics.monitor(registry, entradas, "usuarios.idempotencia",
+                Tags.of("cache.manager", "usuarioIdempotencia", "name", "usuarios.idempotencia"));
+    }
+
+    /** Huella del contenido de la solicitud: SHA-256 de su representación, sin guardar los datos. */
+    public static String huella(Object solicitud) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(String.valueOf(solicitud).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Ejecuta {@code operacion} una sola vez por clave, o devuelve la respuesta guardada.
+     *
+     * @param conservar indica si la respuesta se guarda para las repeticiones
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Respuesta<T> ejecutar(String clave, String huella, Supplier<T> operacion, Predicate<T> conservar) {
+        if (clave.isBlank() || clave.length() > MAX_LARGO_CLAVE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El encabezado " + ENCABEZADO + " debe tener entre 1 y " + MAX_LARGO_CLAVE + " caracteres");
+        }
+
+        Entrada nueva = new Entrada(huella, new CompletableFuture<>());
+        // get() con función de carga es atómico y cuenta aciertos y fallos en las métricas
+        Entrada existente = entradas.get(clave, k -> nueva);
+        if (existente != nueva) {
+            if (!existente.huella().equals(huella)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "La clave de idempotencia ya se usó con una solicitud distinta");
+            }
+            logger.debug("Solicitud repetida con la clave de idempotencia {}", clave);
+            return new Respuesta<>((T) esperar(existente.respuesta()), true);
+        }
+
+        T valor;
+        try {
+            valor = operacion.get();
+        } catch (RuntimeException e) {
+            entradas.asMap().remove(clave, nueva);
+            nueva.respuesta().completeExceptionally(e);
+            throw e;
+        }
+        if (!conservar.test(valor)) {
+            entradas.asMap().remove(clave, nueva);
+        }
+        nueva.respuesta().complete(valor);
+        return new Respuesta<>(valor, false);
+    }
+
+    private Object esperar(CompletableFuture<Object> respuesta) {
+        try {
+            return respuesta.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Una solicitud con la misma clave de idempotencia sigue en curso");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Solicitud interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ResponseStatusException error) {
+                throw error;
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.dto.UsuarioBatchResultadoDTO;
+import com.uniquindio.api.crud.dto.UsuarioDTO;
+import com.uniquindio.api.crud.dto.UsuarioImportacionDTO;
+import com.uniquindio.api.crud.model.EstadoImportacion;
+import com.uniquindio.api.crud.model.Importacion;
+import com.uniquindio.api.crud.model.ImportacionError;
+import com.uniquindio.api.crud.repository.ImportacionErrorRepository;
+import com.uniquindio.api.crud.repository.ImportacionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importaciones de usuarios desde archivos CSV grandes, en segundo plano. El archivo se copia al
+ * directorio {@code usuarios.importacion.directorio} y un hilo propio lo recorre con un lector con
+ * búfer, de a bloques de {@code usuarios.importacion.tamano-bloque} filas: cada bloque se valida en
+ * paralelo y se inserta como un lote ({@link UsuarioService#importarBloque}), en la misma transacción
+ * que el avance y los errores por fila. Las importaciones se ejecutan de a una, en orden de llegada.
+ * <p>
+ * Ante un fallo transitorio (claves saturadas, base de datos no disponible) el bloque se reintenta;
+ * si sigue fallando la importación queda FALLIDA y {@link #reanudar(Long)} la continúa desde el último
+ * bloque confirmado. Las que un reinicio dejó a medias se reanudan solas al arrancar.
+ * <p>
+ * Con varias instancias, cada importación la ejecuta la que la tiene tomada ({@code nodo}), con un
+ * arriendo de {@code usuarios.importacion.arriendo} que renueva mientras la tiene programada. Las demás
+ * no la tocan hasta que el arriendo vence (la instancia se cayó); entonces la retoma la que tiene el
+ * archivo, o la marca FALLIDA cualquiera que no lo tenga. El avance solo se confirma si la importación
+ * sigue tomada por la instancia, así dos instancias no importan el mismo bloque.
+ * <p>
+ * Publica las filas importadas en {@code usuarios.importacion.filas} (por resultado) y las métricas del
+ * hilo con {@code name=usuarios.importacion}.
+ */
+@Component
+public class UsuarioImportaciones {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioImportaciones.class);
+
+    private static final List<String> COLUMNAS_OBLIGATORIAS = List.of("nombre", "cedula", "email", "rol", "clave");
+    private static final Set<EstadoImportacion> INTERRUMPIDAS = EnumSet.of(EstadoImportacion.PENDIENTE, EstadoImportacion.EN_CURSO);
+
+    // Intentos por bloque ante fallos transitorios; la espera entre intentos se duplica desde 1 s
+    private static final int INTENTOS_POR_BLOQUE = 4;
+
+    private static final int TAMANO_BUFER = 64 * 1024;
+
+    private final UsuarioService usuarioService;
+    private final ImportacionRepository importacionRepository;
+    private final ImportacionErrorRepository importacionErrorRepository;
+    private final Path directorio;
+    private final int tamanoBloque;
+    private final String nodo;
+    private final Duration arriendo;
+    private final ExecutorService executor;
+    private final Set<Long> programadas = ConcurrentHashMap.newKeySet();
+    private final Counter filasCreadas;
+    private final Counter filasRechazadas;
+
+    public UsuarioImportaciones(UsuarioService usuarioService,
+                                ImportacionRepository importacionRepository,
+                                ImportacionErrorRepository importacionErrorRepository,
+                                MeterRegistry registry,
+                                @Value("${usuarios.importacion.directorio:${java.io.tmpdir}/usuarios-importaciones}") Path directorio,
+                                @Value("${usuarios.importacion.tamano-bloque:1000}") int tamanoBloque,
+                                @Value("${usuarios.importacion.nodo:}") String nodo,
+                                @Value("${usuarios.importacion.arriendo:PT1M}") Duration arriendo) {
+        this.usuarioService = usuarioService;
+        this.importacionRepository = importacionRepository;
+        this.importacionErrorRepository = importacionErrorRepository;
+        this.directorio = directorio;
+        this.tamanoBloque = tamanoBloque;
+        this.nodo = nodo.isBlank() ? nodoPorDefecto() : nodo;
+        this.arriendo = arriendo;
+        try {
+            Files.createDirectories(directorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio de importaciones " + directorio, e);
+        }
+
+        this.executor = ExecutorServiceMetrics.monitor(registry, Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "importaciones-1");
+            hilo.setDaemon(true);
+            return hilo;
+        }), "usuarios.importacion");
+        this.filasCreadas = filas(registry, "creada");
+        this.filasRechazadas = filas(registry, "rechazada");
+    }
+
+    // El PID distingue instancias en el mismo equipo y reinicios: las importaciones de una instancia
+    // reiniciada se retoman cuando vence el arriendo de la anterior
+    private static String nodoPorDefecto() {
+        String equipo;
+        try {
+            equipo = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            equipo = "desconocido";
+        }
+        return equipo + "-" + ProcessHandle.current().pid();
+    }
+
+    private static Counter filas(MeterRegistry registry, String resultado) {
+        return Counter.builder("usuarios.importacion.filas")
+                .description("Filas de importaciones CSV confirmadas").tag("resultado", resultado).register(registry);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Reanuda las importaciones pendientes o a medias que no tiene tomadas otra instancia: las que dejó
+     * un reinicio de esta y las de instancias cuyo arriendo venció. Si el archivo no está en esta
+     * instancia, la importación queda FALLIDA.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reanudarInterrumpidas() {
+        Instant ahora = Instant.now();
+        for (Importacion importacion : importacionRepository.findByEstadoIn(INTERRUMPIDAS)) {
+            if (programadas.contains(importacion.getId()) || tomadaPorOtra(importacion, ahora)) {
+                continue;
+            }
+            if (Files.exists(Path.of(importacion.getRuta()))) {
+                logger.info("Reanudando la importación {} desde la fila {}", importacion.getId(),
+                        importacion.getFilasProcesadas() + 2);
+                programar(importacion.getId());
+            } else if (importacionRepository.reclamar(importacion.getId(), INTERRUMPIDAS, nodo, ahora.plus(arriendo), ahora) > 0) {
+                importacionRepository.cambiarEstado(importacion.getId(), EstadoImportacion.FALLIDA,
+                        "El archivo de la importación ya no existe", ahora);
+                importacionRepository.liberar(importacion.getId(), nodo);
+            }
+        }
+    }
+
+    /** Renueva el arriendo de las importaciones programadas aquí y retoma las de instancias caídas. */
+    @Scheduled(initialDelayString = "${usuarios.importacion.renovacion:PT20S}",
+            fixedDelayString = "${usuarios.importacion.renovacion:PT20S}")
+    public void renovarArriendos() {
+        if (!programadas.isEmpty()) {
+            importacionRepository.renovar(Set.copyOf(programadas), nodo, Instant.now().plus(arriendo));
+        }
+        reanudarInterrumpidas();
+    }
+
+    private boolean tomadaPorOtra(Importacion importacion, Instant ahora) {
+        return importacion.getNodo() != null && !importacion.getNodo().equals(nodo)
+                && importacion.getArriendoHasta() != null && importacion.getArriendoHasta().isAfter(ahora);
+    }
+
+    /**
+     * Guarda el archivo y programa su importación. El encabezado se valida enseguida (400 si falta
+     * una columna obligatoria); las filas, al importarlas.
+     */
+    public UsuarioImportacionDTO crear(MultipartFile archivo) {
+        if (archivo.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El archivo está vacío");
+        }
+        Path ruta = directorio.resolve(UUID.randomUUID() + ".csv");
+        try {
+            archivo.transferTo(ruta);
+            try (BufferedReader reader = abrir(ruta)) {
+                columnas(new LectorCsv(reader).siguiente());
+            }
+        } catch (IOException e) {
+            logger.error("No se pudo guardar el archivo de importación {}", archivo.getOriginalFilename(), e);
+            borrar(ruta);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo guardar el archivo");
+        } catch (ResponseStatusException e) {
+            borrar(ruta);
+            throw e;
+        }
+
+        Importacion importacion = new Importacion();
+        importacion.setArchivo(archivo.getOriginalFilename());
+        importacion.setRuta(ruta.toString());
+        importacion.setEstado(EstadoImportacion.PENDIENTE);
+        importacion.setNodo(nodo);
+        importacion.setCreada(Instant.now());
+        importacion.setActualizada(importacion.getCreada());
+        importacion.setArriendoHasta(importacion.getCreada().plus(arriendo));
+        importacion = importacionRepository.save(importacion);
+
+        logger.info("Importación {} programada para el archivo {} ({} bytes)", importacion.getId(),
+                importacion.getArchivo(), archivo.getSize());
+        programar(importacion.getId());
+        return UsuarioImportacionDTO.de(importacion);
+    }
+
+    public UsuarioImportacionDTO estado(Long id) {
+        return UsuarioImportacionDTO.de(buscar(id));
+    }
+
+    /** Filas rechazadas, en orden de fila; {@code indice} es la fila del archivo (el encabezado es la 1). */
+    public List<UsuarioBatchResultadoDTO> errores(Long id, int page, int size) {
+        buscar(id);
+        return importacionErrorRepository.findByImportacionIdOrderByFila(id, PageRequest.of(page, size))
+                .map(error -> new UsuarioBatchResultadoDTO(error.getFila(), error.getStatus(), null, error.getMensaje()))
+                .getContent();
+    }
+
+    /** Continúa una importación fallida desde el último bloque confirmado. */
+    public UsuarioImportacionDTO reanudar(Long id) {
+        Importacion importacion = buscar(id);
+        if (importacion.getEstado() != EstadoImportacion.FALLIDA) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Solo se pueden reanudar importaciones fallidas; estado actual: " + importacion.getEstado());
+        }
+        if (!Files.exists(Path.of(importacion.getRuta()))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "El archivo de la importación ya no existe");
+        }
+        Instant ahora = Instant.now();
+        if (importacionRepository.reclamar(id, EnumSet.of(EstadoImportacion.FALLIDA), nodo, ahora.plus(arriendo), ahora) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "La importación ya la reanudó otra instancia");
+        }
+        importacionRepository.cambiarEstado(id, EstadoImportacion.PENDIENTE, null, ahora);
+        logger.info("Importación {} reanudada desde la fila {}", id, importacion.getFilasProcesadas() + 2);
+        programar(id);
+        return estado(id);
+    }
+
+    private Importacion buscar(Long id) {
+        return importacionRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Importación no encontrada con ID: " + id));
+    }
+
+    private void programar(Long id) {
+        if (programadas.add(id)) {
+            executor.execute(() -> {
+                try {
+                    ejecutar(id);
+                } finally {
+                    programadas.remove(id);
+                    liberar(id);
+                }
+            });
+        }
+    }
+
+    // Libera el arriendo al terminar, fallar o detenerse, para que otra instancia pueda retomarla enseguida
+    private void liberar(Long id) {
+        try {
+            importacionRepository.liberar(id, nodo);
+        } catch (Exception e) {
+            logger.warn("No se pudo liberar la importación {}; se liberará al vencer el arriendo: {}", id, e.getMessage());
+        }
+    }
+
+    private void ejecutar(Long id) {
+        Instant ahora = Instant.now();
+        if (importacionRepository.reclamar(id, INTERRUMPIDAS, nodo, ahora.plus(arriendo), ahora) == 0) {
+            logger.info("La importación {} ya no está pendiente o la ejecuta otra instancia", id);
+            return;
+        }
+        Importacion importacion = importacionRepository.findById(id).orElse(null);
+        if (importacion == null) {
+            return;
+        }
+        importacionRepository.cambiarEstado(id, EstadoImportacion.EN_CURSO, null, Instant.now());
+        Path ruta = Path.of(importacion.getRuta());
+
+        try (BufferedReader reader = abrir(ruta)) {
+            LectorCsv lector = new LectorCsv(reader);
+            List<String> encabezado = lector.siguiente();
+            Map<String, Integer> columnas = columnas(encabezado);
+            // Las filas ya confirmadas se leen sin procesarlas
+            long confirmadas = importacion.getFilasProcesadas();
+            long saltadas = 0;
+            while (saltadas < confirmadas && lector.siguiente() != null) {
+                saltadas++;
+            }
+
+            int fila = (int) confirmadas + 2;
+            while (true) {
+                if (Thread.currentThread().isInterrupted()) {
+                    logger.info("Importación {} detenida en la fila {}; se reanudará al arrancar", id, fila);
+                    return;
+                }
+                long inicio = System.nanoTime();
+                List<List<String>> registros = new ArrayList<>(tamanoBloque);
+                List<String> registro;
+                while (registros.size() < tamanoBloque && (registro = lector.siguiente()) != null) {
+                    registros.add(registro);
+                }
+                if (registros.isEmpty()) {
+                    break;
+                }
+                importarBloque(id, columnas, encabezado.size(), registros, fila, inicio);
+                fila += registros.size();
+            }
+
+            borrar(ruta);
+            importacionRepository.cambiarEstado(id, EstadoImportacion.COMPLETADA, null, Instant.now());
+            Importacion terminada = buscar(id);
+            logger.info("Importación {} completada: {} filas, {} creados, {} rechazados", id,
+                    terminada.getFilasProcesadas(), terminada.getCreados(), terminada.getFallidos());
+
+        } catch (ArriendoPerdido e) {
+            logger.warn("Importación {} detenida: {}", id, e.getMessage());
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                logger.info("Importación {} detenida; se reanudará al arrancar", id);
+                return;
+            }
+            logger.error("Importación {} fallida: {}", id, e.getMessage());
+            try {
+                importacionRepository.cambiarEstado(id, EstadoImportacion.FALLIDA, mensaje(e), Instant.now());
+            } catch (Exception estado) {
+                logger.error("No se pudo marcar como fallida la importación {}: {}", id, estado.getMessage());
+            }
+        }
+    }
+
+    // Convierte los registros en filas, rechaza los que no tienen las columnas del encabezado e importa
+    // el resto; el avance y los errores se guardan en la transacción del bloque
+    private void importarBloque(Long id, Map<String, Integer> columnas, int ancho, List<List<String>> registros,
+                                int primeraFila, long inicio) throws InterruptedException {
+        List<UsuarioDTO> usuariosDTO = new ArrayList<>(registros.size());
+        List<Integer> filas = new ArrayList<>(registros.size());
+        List<ImportacionError> rechazados = new ArrayList<>();
+        for (int k = 0; k < registros.size(); k++) {
+            List<String> registro = registros.get(k);
+            if (registro.size() != ancho) {
+                rechazados.add(new ImportacionError(id, primeraFila + k, HttpStatus.BAD_REQUEST.value(),
+                        "La fila tiene " + registro.size() + " columnas y el encabezado " + ancho));
+                continue;
+            }
+            usuariosDTO.add(new UsuarioDTO(null,
+                    valor(registro, columnas, "nombre"),
+                    valor(registro, columnas, "cedula"),
+                    valor(registro, columnas, "email"),
+                    valor(registro, columnas, "rol"),
+                    valor(registro, columnas, "clase"),
+                    valor(registro, columnas, "clave")));
+            filas.add(primeraFila + k);
+        }
+
+        for (int intento = 1; ; intento++) {
+            try {
+                UsuarioBatchResultadoDTO[] resultados = usuarioService.importarBloque(usuariosDTO,
+                        confirmados -> confirmar(id, registros.size(), filas, confirmados, rechazados, inicio));
+                long creados = Arrays.stream(resultados)
+                        .filter(resultado -> resultado.status() == HttpStatus.CREATED.value()).count();
+                filasCreadas.increment(creados);
+                filasRechazadas.increment(registros.size() - creados);
+                return;
+            } catch (RuntimeException e) {
+                if (intento == INTENTOS_POR_BLOQUE || !transitorio(e)) {
+                    throw e;
+                }
+                long espera = 1000L << (intento - 1);
+                logger.warn("Bloque de la importación {} desde la fila {} falló ({}), reintentando en {} ms",
+                        id, primeraFila, mensaje(e), espera);
+                TimeUnit.MILLISECONDS.sleep(espera);
+            }
+        }
+    }
+
+    private void confirmar(Long id, int registros, List<Integer> filas, UsuarioBatchResultadoDTO[] resultados,
+                           List<ImportacionError> rechazados, long inicio) {
+        List<ImportacionError> errores = new ArrayList<>(rechazados);
+        long creados = 0;
+        for (int k = 0; k < resultados.length; k++) {
+            if (resultados[k].status() == HttpStatus.CREATED.value()) {
+                creados++;
+            } else {
+                errores.add(new ImportacionError(id, filas.get(k), resultados[k].status(), resultados[k].mensaje()));
+            }
+        }
+        importacionErrorRepository.saveAll(errores);
+        int avanzadas = importacionRepository.avanzar(id, nodo, registros, creados, errores.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), Instant.now());
+        if (avanzadas == 0) {
+            // Revierte el bloque: la importación ya la retomó otra instancia
+            throw new ArriendoPerdido("el arriendo venció y la tomó otra instancia");
+        }
+    }
+
+    private static class ArriendoPerdido extends RuntimeException {
+        ArriendoPerdido(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    private static boolean transitorio(RuntimeException e) {
+        if (e instanceof ResponseStatusException error) {
+            return error.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return e instanceof TransientDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private static String mensaje(Exception e) {
+        String mensaje = e instanceof ResponseStatusException error ? error.getReason() : e.getMessage();
+        if (mensaje == null) {
+            mensaje = e.getClass().getSimpleName();
+        }
+        return mensaje.length() > 1000 ? mensaje.substring(0, 1000) : mensaje;
+    }
+
+    // Posición de cada columna por nombre, sin distinguir mayúsculas; 'clase' es opcional
+    private static Map<String, Integer> columnas(List<String> encabezado) {
+        if (encabezado == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El archivo no tiene encabezado");
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezado.size(); i++) {
+            columnas.put(encabezado.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String columna : COLUMNAS_OBLIGATORIAS) {
+            if (!columnas.containsKey(columna)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Falta la columna '" + columna + "' en el encabezado; se esperan " +
+                                String.join(",", COLUMNAS_OBLIGATORIAS) + " y opcionalmente clase");
+            }
+        }
+        return columnas;
+    }
+
+    // Los campos vacíos se tratan como ausentes, para que la validación informe el campo obligatorio
+    private static String valor(List<String> registro, Map<String, Integer> columnas, String columna) {
+        Integer posicion = columnas.get(columna);
+        if (posicion == null) {
+            return null;
+        }
+        String valor = registro.get(posicion).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static BufferedReader abrir(Path ruta) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(ruta), StandardCharsets.UTF_8), TAMANO_BUFER);
+    }
+
+    private static void borrar(Path ruta) {
+        try {
+            Files.deleteIfExists(ruta);
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar el archivo de importación {}: {}", ruta, e.getMessage());
+        }
+    }
+}
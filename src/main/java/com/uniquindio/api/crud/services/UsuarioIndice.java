@@ -0,0 +1,270 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.config.LecturaPrimaria;
+import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import com.uniquindio.api.crud.model.RolUsuario;
+import com.uniquindio.api.crud.model.Usuario;
+import com.uniquindio.api.crud.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Índice en memoria de los nombres de usuario para el autocompletado. Guarda, por usuario, los
+ * campos que devuelve la API y dos índices invertidos sobre el nombre normalizado (minúsculas y
+ * sin tildes): trigramas, para buscar subcadenas de 3 o más caracteres, y palabras ordenadas, para
+ * prefijos más cortos. Se construye desde la tabla al arrancar y se actualiza en cada escritura.
+ * <p>
+ * Mientras se construye, {@link #listo()} devuelve {@code false} y las búsquedas deben ir a MySQL.
+ */
+@Component
+public class UsuarioIndice {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioIndice.class);
+
+    private static final int N = 3;
+
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentMap<Long, Entrada> entradas = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Long>> trigramas = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> palabras = new ConcurrentSkipListMap<>();
+    private volatile boolean listo;
+
+    public UsuarioIndice(UsuarioRepository usuarioRepository,
+                         TransactionTemplate transactionTemplate,
+                         MeterRegistry registry) {
+        this.usuarioRepository = usuarioRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setReadOnly(true);
+
+        Gauge.builder("usuarios.indice.entradas", entradas, Map::size)
+                .description("Usuarios en el índice de autocompletado").register(registry);
+        Gauge.builder("usuarios.indice.trigramas", trigramas, Map::size)
+                .description("Trigramas distintos en el índice de autocompletado").register(registry);
+    }
+
+    private record Entrada(Long id, String nombre, String email, RolUsuario rol, String clase, String normalizado) {
+
+        static Entrada de(Long id, String nombre, String email, RolUsuario rol, String clase) {
+            return new Entrada(id, nombre, email, rol, clase, normalizar(nombre));
+        }
+
+        UsuarioResponseDTO dto() {
+            return new UsuarioResponseDTO(id, valor(nombre), valor(email), valor(clase));
+        }
+
+        private static String valor(String texto) {
+            return texto != null ? texto : "";
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        // Del primario: lo que falte en una réplica atrasada no lo corrige ninguna escritura posterior
+        long filas = LecturaPrimaria.ejecutar(() -> transactionTemplate.execute(status -> {
+            long n = 0;
+            try (Stream<UsuarioRepository.FilaIndice> todos = usuarioRepository.streamFilaIndice()) {
+                for (Iterator<UsuarioRepository.FilaIndice> it = todos.iterator(); it.hasNext(); n++) {
+                    UsuarioRepository.FilaIndice fila = it.next();
+                    // Una escritura concurrente ya dejó la versión más reciente: no se reemplaza
+                    Entrada entrada = Entrada.de(fila.getId(), fila.getNombre(), fila.getEmail(),
+                            fila.getRol(), fila.getClase());
+                    if (entradas.putIfAbsent(entrada.id(), entrada) == null) {
+                        indexar(entrada);
+                    }
+                }
+            }
+            return n;
+        }));
+        listo = true;
+        logger.info("Índice de autocompletado construido con {} usuarios en {} ms", filas,
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public boolean listo() {
+        return listo;
+    }
+
+    public void registrar(Usuario usuario) {
+        reemplazar(Entrada.de(usuario.getId(), usuario.getNombre(), usuario.getEmail(),
+                usuario.getRol(), usuario.getClase()));
+    }
+
+    /** Aplica a la entrada existente los cambios de una actualización parcial (atributo → valor). */
+    public void actualizarCampos(Long id, Map<String, Object> cambios) {
+        Entrada actual = entradas.get(id);
+        if (actual == null) {
+            return;
+        }
+        reemplazar(Entrada.de(id,
+                cambios.containsKey("nombre") ? (String) cambios.get("nombre") : actual.nombre(),
+                cambios.containsKey("email") ? (String) cambios.get("email") : actual.email(),
+                cambios.containsKey("rol") ? (RolUsuario) cambios.get("rol") : actual.rol(),
+                cambios.containsKey("clase") ? (String) cambios.get("clase") : actual.clase()));
+    }
+
+    public void eliminar(Long id) {
+        entradas.computeIfPresent(id, (clave, entrada) -> {
+            desindexar(entrada);
+            return null;
+        });
+    }
+
+    public void eliminar(Collection<Long> ids) {
+        ids.forEach(this::eliminar);
+    }
+
+    public void eliminarClase(String clase) {
+        entradas.values().stream()
+                .filter(entrada -> Objects.equals(entrada.clase(), clase))
+                .map(Entrada::id)
+                .toList()
+                .forEach(this::eliminar);
+    }
+
+    /**
+     * Hasta {@code limite} usuarios cuyo nombre contiene {@code texto} (sin distinguir mayúsculas ni
+     * tildes), filtrados por rol y clase si no son {@code null}. Primero los nombres que empiezan por
+     * el texto, luego los que tienen una palabra que empieza por él y al final el resto.
+     */
+    public List<UsuarioResponseDTO> sugerir(String texto, RolUsuario rol, String clase, int limite) {
+        String consulta = normalizar(texto);
+        if (consulta.isEmpty() || limite < 1) {
+            return List.of();
+        }
+
+        Collection<Long> candidatos = consulta.length() < N ? porPrefijo(consulta) : porTrigramas(consulta);
+        List<Entrada> coincidencias = new ArrayList<>();
+        for (Long id : candidatos) {
+            Entrada entrada = entradas.get(id);
+            if (entrada != null
+                    && entrada.normalizado().contains(consulta)
+                    && (rol == null || rol == entrada.rol())
+                    && (clase == null || clase.equals(entrada.clase()))) {
+                coincidencias.add(entrada);
+            }
+        }
+
+        Comparator<Entrada> orden = Comparator.<Entrada>comparingInt(entrada -> relevancia(entrada, consulta))
+                .thenComparing(Entrada::normalizado)
+                .thenComparing(Entrada::id);
+        return coincidencias.stream()
+                .sorted(orden)
+                .limit(limite)
+                .map(Entrada::dto)
+                .toList();
+    }
+
+    private static int relevancia(Entrada entrada, String consulta) {
+        if (entrada.normalizado().startsWith(consulta)) {
+            return 0;
+        }
+        return entrada.normalizado().contains(" " + consulta) ? 1 : 2;
+    }
+
+    // Intersección de las listas de todos los trigramas de la consulta, empezando por la más corta
+    private Collection<Long> porTrigramas(String consulta) {
+        List<Set<Long>> listas = new ArrayList<>();
+        for (String trigrama : trigramasDe(consulta)) {
+            Set<Long> ids = trigramas.get(trigrama);
+            if (ids == null) {
+                return List.of();
+            }
+            listas.add(ids);
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> resultado = new HashSet<>(listas.get(0));
+        for (int i = 1; i < listas.size() && !resultado.isEmpty(); i++) {
+            resultado.retainAll(listas.get(i));
+        }
+        return resultado;
+    }
+
+    private Collection<Long> porPrefijo(String consulta) {
+        ConcurrentNavigableMap<String, Set<Long>> rango = palabras.subMap(consulta, true, consulta + Character.MAX_VALUE, false);
+        Set<Long> resultado = new LinkedHashSet<>();
+        rango.values().forEach(resultado::addAll);
+        return resultado;
+    }
+
+    private void reemplazar(Entrada nueva) {
+        entradas.compute(nueva.id(), (id, anterior) -> {
+            if (anterior != null) {
+                desindexar(anterior);
+            }
+            indexar(nueva);
+            return nueva;
+        });
+    }
+
+    private void indexar(Entrada entrada) {
+        for (String trigrama : trigramasDe(entrada.normalizado())) {
+            trigramas.computeIfAbsent(trigrama, k -> ConcurrentHashMap.newKeySet()).add(entrada.id());
+        }
+        for (String palabra : palabrasDe(entrada.normalizado())) {
+            palabras.computeIfAbsent(palabra, k -> ConcurrentHashMap.newKeySet()).add(entrada.id());
+        }
+    }
+
+    private void desindexar(Entrada entrada) {
+        for (String trigrama : trigramasDe(entrada.normalizado())) {
+            trigramas.computeIfPresent(trigrama, (k, ids) -> ids.remove(entrada.id()) && ids.isEmpty() ? null : ids);
+        }
+        for (String palabra : palabrasDe(entrada.normalizado())) {
+            palabras.computeIfPresent(palabra, (k, ids) -> ids.remove(entrada.id()) && ids.isEmpty() ? null : ids);
+        }
+    }
+
+    private static Set<String> trigramasDe(String texto) {
+        Set<String> resultado = new HashSet<>();
+        for (int i = 0; i + N <= texto.length(); i++) {
+            resultado.add(texto.substring(i, i + N));
+        }
+        return resultado;
+    }
+
+    private static Set<String> palabrasDe(String texto) {
+        Set<String> resultado = new HashSet<>();
+        for (String palabra : texto.split(" ")) {
+            if (!palabra.isEmpty()) {
+                resultado.add(palabra);
+            }
+        }
+        return resultado;
+    }
+
+    // Minúsculas, sin tildes y con los espacios colapsados
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+}
@@ -1,19 +1,68 @@
 package com.uniquindio.api.crud.services;
 
+import com.uniquindio.api.crud.config.CacheConfig;
+import com.uniquindio.api.crud.config.LecturaPrimaria;
+import com.uniquindio.api.crud.dto.UsuarioBatchResponseDTO;
+import com.uniquindio.api.crud.dto.UsuarioBatchResultadoDTO;
+import com.uniquindio.api.crud.dto.UsuarioCambioDTO;
+import com.uniquindio.api.crud.dto.UsuarioCursorPageDTO;
+import com.uniquindio.api.crud.dto.UsuarioConteosResponseDTO;
 import com.uniquindio.api.crud.dto.UsuarioDTO;
+import com.uniquindio.api.crud.dto.UsuarioListadoVersionadoDTO;
 import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import com.uniquindio.api.crud.dto.UsuarioVersionadoDTO;
 import com.uniquindio.api.crud.model.RolUsuario;
 import com.uniquindio.api.crud.model.Usuario;
 import com.uniquindio.api.crud.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,17 +79,80 @@ public class UsuarioService{
     @Autowired
     UsuarioRepository usuarioRepository;
 
+    @Autowired
+    UsuarioExistenciaFiltro existenciaFiltro;
+
+    @Autowired
+    UsuarioIndice usuarioIndice;
+
+    @Autowired
+    UsuarioConteos conteos;
+
+    @Autowired
+    UsuarioClaves usuarioClaves;
+
+    // Flujo SSE de cambios; cada escritura confirmada se publica ahí
+    @Autowired
+    UsuarioCambios usuarioCambios;
+
+    // Solo con usuarios.escrituras.agrupadas=true; si no, cada escritura abre su propia transacción
+    @Autowired(required = false)
+    UsuarioEscrituras usuarioEscrituras;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    // Filas máximas aceptadas en una creación por lotes
+    @Value("${usuarios.batch.max-filas:10000}")
+    int maxFilasLote;
+
+    // Filas insertadas por transacción; cada bloque se envía en lotes JDBC de hibernate.jdbc.batch_size
+    @Value("${usuarios.batch.tamano-bloque:500}")
+    int tamanoBloque;
+
+    // Valores por consulta IN al validar la unicidad de un lote
+    private static final int TAMANO_CONSULTA_IN = 1000;
+
+    // Intentos de un bloque de importación que choca con escrituras concurrentes por la cédula o el correo
+    private static final int INTENTOS_BLOQUE_CON_CONFLICTO = 3;
+
+    // Campos que acepta la actualización parcial
+    private static final Set<String> CAMPOS_ACTUALIZABLES = Set.of("nombre", "cedula", "email", "rol", "clase");
+
+    // Máximo de sugerencias por solicitud de autocompletado
+    private static final int MAX_SUGERENCIAS = 50;
+
+    // Filas escritas entre cada flush de la exportación hacia el cliente
+    private static final int FILAS_POR_FLUSH = 1000;
+
     // GET USUARIO POR ID
-    public UsuarioResponseDTO findById(Long id) {
+    // Lectura a través de la caché: solo los fallos consultan la base de datos. La entrada guarda la
+    // versión leída junto con el usuario; de ella sale el ETag, sin otra consulta. Con réplicas, los
+    // fallos leen del primario: una réplica atrasada dejaría la entrada vieja hasta que expire.
+    // Con sync la carga ocupa la entrada: la invalidación que cada escritura hace después de confirmar
+    // espera a que termine una carga en curso y la descarta, así una lectura que empezó antes de la
+    // escritura no deja en la caché el usuario anterior
+    @Cacheable(cacheNames = CacheConfig.USUARIOS, sync = true)
+    public UsuarioVersionadoDTO findById(Long id) {
         logger.info("Buscando usuario con ID: {}", id);
 
         try {
-            Usuario usuario = usuarioRepository.findById(id)
+            Usuario usuario = LecturaPrimaria.ejecutar(() -> usuarioRepository.findById(id))
                     .orElseThrow(() -> {
                         logger.warn("Usuario no encontrado con ID: {}", id);
                         return new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id);
                     });
-            return convertirDTOResponse(usuario);
+            return new UsuarioVersionadoDTO(convertirDTOResponse(usuario),
+                    usuario.getVersion() != null ? usuario.getVersion() : 0L);
         } catch (ResponseStatusException e) {
             throw e;
         } catch (Exception e) {
@@ -50,16 +162,19 @@ public class UsuarioService{
     }
 
     // GET TODOS LOS USUARIOS
-    public Page<UsuarioResponseDTO> findAll(Pageable pageable) {
+    // El ETag sale de las versiones de las entidades cargadas, sin otra consulta
+    public UsuarioListadoVersionadoDTO<Page<UsuarioResponseDTO>> findAll(Pageable pageable) {
         logger.info("Obteniendo usuarios con paginación: {}", pageable);
         try {
-            Page<Usuario> usuarios = usuarioRepository.findAll(pageable);
+            Page<Usuario> usuarios = paginar(usuarioRepository::findSliceBy, pageable);
 
             if (usuarios.isEmpty()) {
                 logger.warn("No se encontraron usuarios en la base de datos");
                 throw new ResponseStatusException(HttpStatus.NO_CONTENT, "No hay usuarios registrados");
             }
-            return usuarios.map(this::convertirDTOResponse);
+            String etag = etagLista(usuarios.getContent(), Usuario::getId, Usuario::getVersion,
+                    contextoPagina(pageable, usuarios.getTotalElements()));
+            return new UsuarioListadoVersionadoDTO<>(usuarios.map(this::convertirDTOResponse), etag);
         } catch (ResponseStatusException e) {
             throw e;
         } catch (Exception e) {
@@ -70,58 +185,601 @@ public class UsuarioService{
 
 
 
+    // El total de la página sale de los conteos en memoria en lugar de un count(*), y es una estimación
+    // (ver UsuarioConteos); mientras no se han cargado se cuenta en la base de datos
+    private <T> Page<T> paginar(Function<Pageable, Slice<T>> consulta, Pageable pageable) {
+        long total = conteos.total();
+        Slice<T> filas = consulta.apply(pageable);
+        return new PageImpl<>(filas.getContent(), pageable, total >= 0 ? total : usuarioRepository.count());
+    }
+
+    /** Si el total de las páginas de {@link #findAll} es la estimación de los conteos en memoria. */
+    public boolean totalEstimado() {
+        return conteos.listo();
+    }
+
+    // CONTEOS POR ROL Y CLASE
+    // Respondidos desde memoria, sin consultar la base de datos
+    public UsuarioConteosResponseDTO conteos() {
+        if (!conteos.listo()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Los conteos se están cargando");
+        }
+        return conteos.resumen();
+    }
+
+
+
+    // GET USUARIOS POR CURSOR (keyset)
+    // Recorre el índice de la llave primaria a partir del último ID entregado: sin OFFSET,
+    // sin count(*) y sin saltos ni repeticiones aunque se inserten usuarios entre páginas
+    public UsuarioListadoVersionadoDTO<UsuarioCursorPageDTO> findAfter(String cursor, int size) {
+        logger.info("Obteniendo usuarios por cursor: {}, tamaño: {}", cursor, size);
+
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El tamaño de página debe ser mayor que cero");
+        }
+        long desdeId = decodificarCursor(cursor);
+
+        try {
+            Slice<Usuario> usuarios = usuarioRepository.findByIdGreaterThan(desdeId,
+                    PageRequest.of(0, size, Sort.by("id")));
+
+            if (usuarios.isEmpty()) {
+                logger.warn("No se encontraron usuarios después del cursor {}", cursor);
+                throw new ResponseStatusException(HttpStatus.NO_CONTENT, "No hay usuarios registrados");
+            }
+            List<UsuarioResponseDTO> contenido = usuarios.map(this::convertirDTOResponse).getContent();
+            String siguiente = usuarios.hasNext() ? codificarCursor(contenido.get(contenido.size() - 1).id()) : null;
+            String etag = etagLista(usuarios.getContent(), Usuario::getId, Usuario::getVersion,
+                    contextoCursor(size, usuarios.hasNext()));
+            return new UsuarioListadoVersionadoDTO<>(new UsuarioCursorPageDTO(contenido, contenido.size(), siguiente), etag);
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error al obtener los usuarios por cursor", e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor", e);
+        }
+    }
+
+    private static String codificarCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Un cursor vacío indica la primera página
+    private static long decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El cursor no es válido");
+        }
+    }
+
+
+
+    // BUSCAR USUARIOS
+    // Filtros opcionales combinados con AND sobre columnas indexadas: rol y clase por igualdad
+    // (idx_usuarios_rol_clase) y nombre por prefijo (idx_usuarios_nombre)
+    public Page<UsuarioResponseDTO> buscar(String rol, String clase, String nombre, Pageable pageable) {
+        logger.info("Buscando usuarios - Rol: {}, Clase: {}, Nombre: {}, {}", rol, clase, nombre, pageable);
+
+        RolUsuario rolUsuario = parsearRol(rol);
+        Specification<Usuario> filtro = (root, query, cb) -> {
+            List<Predicate> condiciones = new ArrayList<>();
+            if (rolUsuario != null) {
+                condiciones.add(cb.equal(root.get("rol"), rolUsuario));
+            }
+            if (clase != null && !clase.isBlank()) {
+                condiciones.add(cb.equal(root.get("clase"), clase));
+            }
+            if (nombre != null && !nombre.isBlank()) {
+                condiciones.add(cb.like(root.get("nombre"), escaparLike(nombre.trim()) + "%", '\\'));
+            }
+            return cb.and(condiciones.toArray(new Predicate[0]));
+        };
+
+        try {
+            return usuarioRepository.findAll(filtro, pageable).map(this::convertirDTOResponse);
+        } catch (Exception e) {
+            logger.error("Error al buscar usuarios", e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor", e);
+        }
+    }
+
+    // AUTOCOMPLETAR POR NOMBRE
+    // Se responde desde el índice en memoria (subcadena, sin tildes ni mayúsculas);
+    // mientras el índice se construye, por prefijo desde la base de datos
+    public List<UsuarioResponseDTO> sugerir(String texto, String rol, String clase, int limite) {
+        if (limite < 1 || limite > MAX_SUGERENCIAS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El límite debe estar entre 1 y " + MAX_SUGERENCIAS);
+        }
+        if (!usuarioIndice.listo()) {
+            logger.debug("Índice de autocompletado en construcción, se consulta la base de datos");
+            return buscar(rol, clase, texto, PageRequest.of(0, limite, Sort.by("nombre"))).getContent();
+        }
+        return usuarioIndice.sugerir(texto, parsearRol(rol), clase != null && !clase.isBlank() ? clase : null, limite);
+    }
+
+    private static RolUsuario parsearRol(String rol) {
+        if (rol == null || rol.isBlank()) {
+            return null;
+        }
+        try {
+            return RolUsuario.valueOf(rol);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Valor de rol no válido.");
+        }
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+
+
+    // VERIFICAR CLAVE
+    // Las claves guardadas en texto plano antes de usar BCrypt, o con otro costo, se rehashean al verificarse
+    public boolean verificarClave(Long id, String clave) {
+        String guardada = usuarioRepository.findClaveById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id));
+
+        boolean valida = usuarioClaves.verificar(clave, guardada);
+        if (valida && usuarioClaves.requiereRehash(guardada)) {
+            int filas = usuarioRepository.updateClave(id, guardada, usuarioClaves.hashear(clave));
+            logger.info("Clave del usuario {} rehasheada: {}", id, filas == 1);
+        }
+        return valida;
+    }
+
+
+
+    // ETAGS (GET condicional de listados; el de GET /{id} viene en la entrada de la caché)
+    // Se calculan con la versión de las filas, sin cargar ni serializar las entidades; el controlador
+    // los consulta solo si la solicitud trae If-None-Match, y si coinciden responde 304 con solo esta
+    // consulta. Son los mismos que findAll y findAfter calculan con las entidades cargadas
+    // Cambia si cambia cualquier fila de la página o el total de usuarios (parte de la respuesta)
+    public String etagPagina(Pageable pageable) {
+        Page<UsuarioRepository.IdVersion> filas = paginar(usuarioRepository::findIdVersionBy, pageable);
+        if (filas.isEmpty()) {
+            return null;
+        }
+        return etagLista(filas.getContent(), UsuarioRepository.IdVersion::getId, UsuarioRepository.IdVersion::getVersion,
+                contextoPagina(pageable, filas.getTotalElements()));
+    }
+
+    // Cambia si cambia cualquier fila de la página o si aparece o desaparece la página siguiente
+    public String etagCursor(String cursor, int size) {
+        if (size < 1) {
+            return null;
+        }
+        Slice<UsuarioRepository.IdVersion> filas = usuarioRepository.findIdVersionByIdGreaterThan(
+                decodificarCursor(cursor), PageRequest.of(0, size, Sort.by("id")));
+        if (filas.isEmpty()) {
+            return null;
+        }
+        return etagLista(filas.getContent(), UsuarioRepository.IdVersion::getId, UsuarioRepository.IdVersion::getVersion,
+                contextoCursor(size, filas.hasNext()));
+    }
+
+    private static String contextoPagina(Pageable pageable, long total) {
+        return "p" + pageable.getPageNumber() + "/" + pageable.getPageSize() + "/" + total;
+    }
+
+    private static String contextoCursor(int size, boolean hayMas) {
+        return "c" + size + "/" + hayMas;
+    }
+
+    // Las filas anteriores al control de versiones no tienen versión: cuentan como 0, igual que en findById
+    private static <T> String etagLista(List<T> filas, Function<T, Long> id, Function<T, Long> version, String contexto) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(contexto.getBytes(StandardCharsets.UTF_8));
+            for (T fila : filas) {
+                Long v = version.apply(fila);
+                digest.update((";" + id.apply(fila) + "-" + (v != null ? v : 0L)).getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+
+
+    // EXPORTAR USUARIOS (NDJSON o CSV)
+    // Recorre la tabla con un cursor de solo avance y escribe cada fila directamente en la salida;
+    // cada entidad se desprende del contexto de persistencia, así la memoria no crece con la tabla
+    @Transactional(readOnly = true)
+    public long exportar(long desdeId, boolean csv, OutputStream salida) throws IOException {
+        logger.info("Exportando usuarios en formato {} desde el ID {}", csv ? "CSV" : "NDJSON", desdeId);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write("id,nombre,email,clase\n");
+        }
+
+        long filas = 0;
+        try (Stream<Usuario> usuarios = usuarioRepository.streamByIdGreaterThan(desdeId)) {
+            Iterator<Usuario> iterador = usuarios.iterator();
+            while (iterador.hasNext()) {
+                Usuario usuario = iterador.next();
+                UsuarioResponseDTO dto = convertirDTOResponse(usuario);
+                entityManager.detach(usuario);
+
+                if (csv) {
+                    writer.write(dto.id() + "," + campoCsv(dto.nombre()) + "," + campoCsv(dto.email()) + ","
+                            + campoCsv(dto.clase()) + "\n");
+                } else {
+                    writer.write(objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+                }
+                if (++filas % FILAS_POR_FLUSH == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        logger.info("Exportación terminada: {} usuarios", filas);
+        return filas;
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+
+
     //DELETE USUARIO
+    // Un SELECT ... FOR UPDATE y un DELETE en una transacción: el SELECT decide el 404 y lee el rol y
+    // la clase que se descuentan de los conteos
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, key = "#id", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, key = "#id")})
     public void deleteById(Long id) {
         logger.info("Intentando eliminar usuario con ID: {}", id);
 
-        if (!usuarioRepository.existsById(id)) {
-            logger.warn("No se encontró el usuario con ID: {}", id);
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id);
-        }
-
+        UsuarioRepository.RolClase eliminado;
         try {
-            usuarioRepository.deleteById(id);
-            logger.info("Usuario eliminado correctamente con ID: {}", id);
+            eliminado = transactionTemplate.execute(status -> {
+                List<UsuarioRepository.RolClase> existente = usuarioRepository.bloquearExistentes(List.of(id));
+                if (existente.isEmpty()) {
+                    return null;
+                }
+                usuarioRepository.deleteUsuarioById(id);
+                return existente.get(0);
+            });
         } catch (Exception e) {
             logger.error("Error inesperado al eliminar usuario con ID {}: {}", id, e.getMessage());
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo eliminar el usuario");
         }
+
+        if (eliminado == null) {
+            logger.warn("No se encontró el usuario con ID: {}", id);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id);
+        }
+        conteos.quitar(eliminado.getRol(), eliminado.getClase());
+        usuarioIndice.eliminar(id);
+        usuarioCambios.publicar(UsuarioCambioDTO.eliminado(id));
+        logger.info("Usuario eliminado correctamente con ID: {}", id);
+    }
+
+    //DELETE MASIVO POR IDS
+    // Un SELECT ... FOR UPDATE y un DELETE ... IN por cada bloque de TAMANO_CONSULTA_IN IDs, todos en la
+    // misma transacción: solo se eliminan y publican los IDs que existían
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, allEntries = true, beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, allEntries = true)})
+    @Transactional
+    public int deleteAllById(Collection<Long> ids) {
+        logger.info("Eliminando {} usuarios por ID", ids.size());
+
+        if (ids.size() > maxFilasLote) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No se pueden eliminar más de " + maxFilasLote + " IDs por solicitud");
+        }
+
+        List<Long> distintos = new ArrayList<>(new HashSet<>(ids));
+        List<Long> existentes = new ArrayList<>();
+        int eliminados = 0;
+        for (int inicio = 0; inicio < distintos.size(); inicio += TAMANO_CONSULTA_IN) {
+            List<UsuarioRepository.RolClase> bloque = usuarioRepository.bloquearExistentes(
+                    distintos.subList(inicio, Math.min(inicio + TAMANO_CONSULTA_IN, distintos.size())));
+            if (!bloque.isEmpty()) {
+                List<Long> idsBloque = bloque.stream().map(UsuarioRepository.RolClase::getId).toList();
+                eliminados += usuarioRepository.deleteByIdIn(idsBloque);
+                existentes.addAll(idsBloque);
+                bloque.forEach(eliminado -> conteos.quitar(eliminado.getRol(), eliminado.getClase()));
+            }
+        }
+        usuarioIndice.eliminar(existentes);
+        // Se publica y se descuenta de los conteos al confirmar
+        existentes.forEach(eliminado -> usuarioCambios.publicar(UsuarioCambioDTO.eliminado(eliminado)));
+        logger.info("Usuarios eliminados por ID: {} de {}", eliminados, ids.size());
+        return eliminados;
+    }
+
+    //DELETE MASIVO POR CLASE
+    // Un DELETE por rol, en una transacción: las filas eliminadas de cada uno se descuentan de los conteos
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, allEntries = true, beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, allEntries = true)})
+    @Transactional
+    public int deleteByClase(String clase) {
+        logger.info("Eliminando los usuarios de la clase: {}", clase);
+
+        int eliminados = 0;
+        for (RolUsuario rol : RolUsuario.values()) {
+            int filas = usuarioRepository.deleteByClaseAndRol(clase, rol);
+            conteos.quitar(rol, clase, filas);
+            eliminados += filas;
+        }
+        int sinRol = usuarioRepository.deleteByClaseAndRolIsNull(clase);
+        conteos.quitar(null, clase, sinRol);
+        eliminados += sinRol;
+        usuarioIndice.eliminarClase(clase);
+        if (eliminados > 0) {
+            usuarioCambios.publicar(UsuarioCambioDTO.claseEliminada(clase));
+        }
+        logger.info("Usuarios eliminados de la clase {}: {}", clase, eliminados);
+        return eliminados;
     }
 
 
     //POST USUARIOS
+    // La unicidad de cédula y correo la garantizan las restricciones de la tabla: un solo INSERT.
+    // La clave llega en texto plano y se guarda hasheada con BCrypt
     public UsuarioResponseDTO save(Usuario usuario) {
         logger.info("Intentando guardar un nuevo usuario en la base de datos...");
 
-        if (usuarioRepository.existsByCedula(usuario.getCedula())) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "La cédula ya está registrada");
-        }
-        if (usuarioRepository.existsByEmail(usuario.getEmail())) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "El correo ya está registrado");
+        usuario.setClave(usuarioClaves.hashear(usuario.getClave()));
+        if (usuarioEscrituras != null) {
+            UsuarioResponseDTO creado = convertirDTOResponse(usuarioEscrituras.crear(usuario));
+            usuarioCambios.publicar(UsuarioCambioDTO.creado(creado));
+            return creado;
         }
 
+        UsuarioResponseDTO creado;
         try {
-            Usuario guardado = usuarioRepository.save(usuario);
-            return convertirDTOResponse(guardado);
+            Usuario guardado = usuarioRepository.saveAndFlush(usuario);
+            existenciaFiltro.registrar(guardado.getCedula(), guardado.getEmail());
+            usuarioIndice.registrar(guardado);
+            conteos.agregar(guardado.getRol(), guardado.getClase());
+            creado = convertirDTOResponse(guardado);
+        } catch (DataIntegrityViolationException e) {
+            throw UsuarioConflictos.traducir(e, "La cédula ya está registrada", "El correo ya está registrado");
         } catch (Exception e) {
             logger.error("Error inesperado al guardar usuario: {}", e.getMessage());
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor");
         }
+        usuarioCambios.publicar(UsuarioCambioDTO.creado(creado));
+        return creado;
     }
 
 
-    //ACTUALIZACION completa Usuarios
-    public UsuarioDTO updateUsuario(Long id, UsuarioDTO usuarioDetails) {
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id));
+    //POST USUARIOS POR LOTES
+    public UsuarioBatchResponseDTO saveAll(List<UsuarioDTO> usuariosDTO) {
+        logger.info("Intentando guardar un lote de {} usuarios...", usuariosDTO.size());
+
+        if (usuariosDTO.size() > maxFilasLote) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El lote no puede superar las " + maxFilasLote + " filas");
+        }
+
+        UsuarioBatchResultadoDTO[] resultados = new UsuarioBatchResultadoDTO[usuariosDTO.size()];
+        List<Integer> pendientes = validarLote(usuariosDTO, resultados);
+        List<Integer> aInsertar = descartarExistentes(usuariosDTO, pendientes, resultados);
+
+        for (int desde = 0; desde < aInsertar.size(); desde += tamanoBloque) {
+            List<Integer> bloque = aInsertar.subList(desde, Math.min(desde + tamanoBloque, aInsertar.size()));
+            insertarBloque(usuariosDTO, bloque, resultados);
+        }
+
+        int creados = (int) Arrays.stream(resultados)
+                .filter(r -> r.status() == HttpStatus.CREATED.value())
+                .count();
+        logger.info("Lote procesado: {} creados, {} rechazados", creados, resultados.length - creados);
+        return new UsuarioBatchResponseDTO(resultados.length, creados, resultados.length - creados,
+                Arrays.asList(resultados));
+    }
+
+    // Valida cada fila con las restricciones de UsuarioDTO y descarta cédulas o correos repetidos en el lote.
+    // Las restricciones se validan en paralelo; los repetidos se buscan en orden, así gana la primera aparición
+    private List<Integer> validarLote(List<UsuarioDTO> usuariosDTO, UsuarioBatchResultadoDTO[] resultados) {
+        List<Integer> pendientes = new ArrayList<>(usuariosDTO.size());
+        Set<String> cedulas = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<Set<ConstraintViolation<UsuarioDTO>>> violacionesPorFila = usuariosDTO.parallelStream()
+                .map(dto -> dto != null ? validator.validate(dto) : Set.<ConstraintViolation<UsuarioDTO>>of())
+                .toList();
+
+        for (int i = 0; i < usuariosDTO.size(); i++) {
+            UsuarioDTO dto = usuariosDTO.get(i);
+            if (dto == null) {
+                resultados[i] = rechazo(i, HttpStatus.BAD_REQUEST, "La fila está vacía");
+                continue;
+            }
+            Set<ConstraintViolation<UsuarioDTO>> violaciones = violacionesPorFila.get(i);
+            if (!violaciones.isEmpty()) {
+                resultados[i] = rechazo(i, HttpStatus.BAD_REQUEST, violaciones.iterator().next().getMessage());
+                continue;
+            }
+            if (cedulas.contains(dto.cedula())) {
+                resultados[i] = rechazo(i, HttpStatus.CONFLICT, "La cédula está repetida dentro del lote");
+                continue;
+            }
+            if (emails.contains(dto.email())) {
+                resultados[i] = rechazo(i, HttpStatus.CONFLICT, "El correo está repetido dentro del lote");
+                continue;
+            }
+            cedulas.add(dto.cedula());
+            emails.add(dto.email());
+            pendientes.add(i);
+        }
+        return pendientes;
+    }
+
+    // Las filas que el filtro de existencia descarta con certeza no se envían a la base de datos
+    private List<Integer> descartarExistentes(List<UsuarioDTO> usuariosDTO, List<Integer> pendientes,
+                                              UsuarioBatchResultadoDTO[] resultados) {
+        List<Integer> candidatos = pendientes.stream()
+                .filter(i -> existenciaFiltro.puedeExistir(usuariosDTO.get(i).cedula(), usuariosDTO.get(i).email()))
+                .toList();
+        List<Integer> aInsertar = descartarRegistrados(usuariosDTO, pendientes, candidatos, resultados);
+        for (int i : candidatos) {
+            if (resultados[i] == null) {
+                existenciaFiltro.registrarFalsoPositivo();
+            }
+        }
+        return aInsertar;
+    }
+
+    // Consulta en una sola pasada (por bloques de IN) cuáles candidatos tienen la cédula o el correo ya
+    // registrados y los rechaza; devuelve el resto de los pendientes
+    private List<Integer> descartarRegistrados(List<UsuarioDTO> usuariosDTO, List<Integer> pendientes,
+                                               List<Integer> candidatos, UsuarioBatchResultadoDTO[] resultados) {
+        Set<String> cedulasExistentes = new HashSet<>();
+        Set<String> emailsExistentes = new HashSet<>();
+
+        for (int desde = 0; desde < candidatos.size(); desde += TAMANO_CONSULTA_IN) {
+            List<Integer> bloque = candidatos.subList(desde, Math.min(desde + TAMANO_CONSULTA_IN, candidatos.size()));
+            List<String> cedulas = bloque.stream().map(i -> usuariosDTO.get(i).cedula()).toList();
+            List<String> emails = bloque.stream().map(i -> usuariosDTO.get(i).email()).toList();
+            for (UsuarioRepository.CedulaEmail existente : usuarioRepository.findCedulaEmailByCedulaInOrEmailIn(cedulas, emails)) {
+                cedulasExistentes.add(existente.getCedula());
+                emailsExistentes.add(existente.getEmail());
+            }
+        }
+
+        List<Integer> aInsertar = new ArrayList<>(pendientes.size());
+        for (int i : pendientes) {
+            UsuarioDTO dto = usuariosDTO.get(i);
+            if (cedulasExistentes.contains(dto.cedula())) {
+                resultados[i] = rechazo(i, HttpStatus.CONFLICT, "La cédula ya está registrada");
+            } else if (emailsExistentes.contains(dto.email())) {
+                resultados[i] = rechazo(i, HttpStatus.CONFLICT, "El correo ya está registrado");
+            } else {
+                aInsertar.add(i);
+            }
+        }
+        return aInsertar;
+    }
+
+    // IMPORTACION POR BLOQUES (ver UsuarioImportaciones)
+    // Como un bloque de un lote, pero las filas válidas se insertan en una sola transacción junto con
+    // 'alConfirmar' (el avance de la importación), también cuando el bloque choca con otra escritura y
+    // se reintenta: las filas y el avance se confirman juntos o no se confirman.
+    // Si las claves no se pueden hashear se lanza 503 en lugar de rechazar las filas, para reintentar el bloque
+    public UsuarioBatchResultadoDTO[] importarBloque(List<UsuarioDTO> usuariosDTO,
+                                                     Consumer<UsuarioBatchResultadoDTO[]> alConfirmar) {
+        UsuarioBatchResultadoDTO[] resultados = new UsuarioBatchResultadoDTO[usuariosDTO.size()];
+        List<Integer> pendientes = validarLote(usuariosDTO, resultados);
+        List<Integer> aInsertar = descartarExistentes(usuariosDTO, pendientes, resultados);
+        List<String> hashes = usuarioClaves.hashear(aInsertar.stream().map(i -> usuariosDTO.get(i).clave()).toList());
+        insertarBloque(usuariosDTO, aInsertar, hashes, resultados, alConfirmar);
+        return resultados;
+    }
+
+    // Las claves del bloque se hashean en paralelo en el pool de UsuarioClaves antes de abrir la transacción
+    private void insertarBloque(List<UsuarioDTO> usuariosDTO, List<Integer> bloque, UsuarioBatchResultadoDTO[] resultados) {
+        List<String> hashes;
+        try {
+            hashes = usuarioClaves.hashear(bloque.stream().map(i -> usuariosDTO.get(i).clave()).toList());
+        } catch (ResponseStatusException e) {
+            logger.warn("No se pudieron hashear las claves de un bloque de {} usuarios: {}", bloque.size(), e.getReason());
+            for (int i : bloque) {
+                resultados[i] = rechazo(i, HttpStatus.valueOf(e.getStatusCode().value()), e.getReason());
+            }
+            return;
+        }
+
+        try {
+            insertarBloque(usuariosDTO, bloque, hashes, resultados, confirmados -> { });
+        } catch (Exception e) {
+            logger.error("Error inesperado al guardar un bloque de {} usuarios: {}", bloque.size(), e.getMessage());
+            for (int i : bloque) {
+                resultados[i] = rechazo(i, HttpStatus.INTERNAL_SERVER_ERROR, "Error interno del servidor");
+            }
+        }
+    }
 
-        if (usuarioRepository.existsByCedula(usuarioDetails.cedula()) && !usuario.getId().equals(id)) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Cédula ya está en uso por otro usuario.");
+    // Inserta un bloque en una transacción, en la que también se ejecuta 'alConfirmar' con los resultados.
+    // Si otra escritura ganó la carrera por una cédula o correo, el bloque se revierte y se repite en una
+    // nueva transacción que primero rechaza (409) las filas ya registradas y después inserta el resto,
+    // junto con 'alConfirmar'. No se usan puntos de guardado por fila: Hibernate marca la transacción
+    // para reversión ante cualquier violación de restricción, y no se podría confirmar el resto
+    private void insertarBloque(List<UsuarioDTO> usuariosDTO, List<Integer> bloque, List<String> hashes,
+                                UsuarioBatchResultadoDTO[] resultados, Consumer<UsuarioBatchResultadoDTO[]> alConfirmar) {
+        Map<Integer, String> hashPorFila = new HashMap<>(bloque.size() * 2);
+        for (int k = 0; k < bloque.size(); k++) {
+            hashPorFila.put(bloque.get(k), hashes.get(k));
+        }
+        List<Usuario> usuarios;
+        for (int intento = 1; ; intento++) {
+            boolean reintento = intento > 1;
+            try {
+                usuarios = transactionTemplate.execute(status -> {
+                    List<Integer> aInsertar = bloque;
+                    if (reintento) {
+                        bloque.forEach(i -> resultados[i] = null);
+                        aInsertar = descartarRegistrados(usuariosDTO, bloque, bloque, resultados);
+                    }
+                    List<Usuario> nuevos = new ArrayList<>(aInsertar.size());
+                    for (int i : aInsertar) {
+                        nuevos.add(convertirAEntidad(usuariosDTO.get(i), hashPorFila.get(i)));
+                    }
+                    usuarioRepository.saveAll(nuevos);
+                    usuarioRepository.flush();
+                    entityManager.clear();
+                    for (int k = 0; k < aInsertar.size(); k++) {
+                        resultados[aInsertar.get(k)] = new UsuarioBatchResultadoDTO(aInsertar.get(k),
+                                HttpStatus.CREATED.value(), nuevos.get(k).getId(), "Usuario creado");
+                    }
+                    alConfirmar.accept(resultados);
+                    return nuevos;
+                });
+                break;
+            } catch (DataIntegrityViolationException e) {
+                if (intento == INTENTOS_BLOQUE_CON_CONFLICTO || !UsuarioConflictos.esConflicto(e)) {
+                    throw e;
+                }
+                logger.warn("Conflicto de unicidad en un bloque de {} usuarios, reintentando sin las filas ya registradas",
+                        bloque.size());
+            }
         }
+        for (Usuario usuario : usuarios) {
+            existenciaFiltro.registrar(usuario.getCedula(), usuario.getEmail());
+            usuarioIndice.registrar(usuario);
+            conteos.agregar(usuario.getRol(), usuario.getClase());
+            usuarioCambios.publicar(UsuarioCambioDTO.creado(convertirDTOResponse(usuario)));
+        }
+    }
+
+    private UsuarioBatchResultadoDTO rechazo(int indice, HttpStatus status, String mensaje) {
+        return new UsuarioBatchResultadoDTO(indice, status.value(), null, mensaje);
+    }
+
 
-        if (usuarioRepository.existsByEmail(usuarioDetails.email()) && !usuario.getId().equals(id)) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Correo ya está en uso por otro usuario.");
+    //ACTUALIZACION completa Usuarios
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, key = "#id", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, key = "#id")})
+    public UsuarioDTO updateUsuario(Long id, UsuarioDTO usuarioDetails) {
+        if (usuarioEscrituras != null) {
+            UsuarioDTO actualizado = actualizarAgrupado(id, usuarioDetails);
+            usuarioCambios.publicar(UsuarioCambioDTO.actualizado(
+                    new UsuarioResponseDTO(id, actualizado.nombre(), actualizado.email(), actualizado.clase())));
+            return actualizado;
         }
+        Usuario usuario = usuarioRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id));
+        // El bloqueo optimista garantiza que el rol y la clase leídos son los que se reemplazan
+        RolUsuario rolAnterior = usuario.getRol();
+        String claseAnterior = usuario.getClase();
 
         usuario.setNombre(usuarioDetails.nombre());
         usuario.setEmail(usuarioDetails.email());
@@ -130,64 +788,155 @@ public class UsuarioService{
         usuario.setClase(usuarioDetails.clase());
 
         try {
-            Usuario updatedUsuario = usuarioRepository.save(usuario);
+            Usuario updatedUsuario = usuarioRepository.saveAndFlush(usuario);
+            existenciaFiltro.registrar(updatedUsuario.getCedula(), updatedUsuario.getEmail());
+            usuarioIndice.registrar(updatedUsuario);
+            conteos.mover(rolAnterior, claseAnterior, updatedUsuario.getRol(), updatedUsuario.getClase());
+            usuarioCambios.publicar(UsuarioCambioDTO.actualizado(convertirDTOResponse(updatedUsuario)));
             return convertirADTO(updatedUsuario);
+        } catch (DataIntegrityViolationException e) {
+            throw UsuarioConflictos.traducir(e, "Cédula ya está en uso por otro usuario.", "Correo ya está en uso por otro usuario.");
         } catch (Exception e) {
             logger.error("Error inesperado al actualizar usuario con ID {}: {}", id, e.getMessage());
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo actualizar el usuario");
         }
     }
 
-    //ACTUALIZACION parcial Usuarios
-    public UsuarioDTO partialUpdateUsuario(Long id, Map<String, Object> updates) {
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id));
-
-        if (updates.containsKey("nombre")) {
-            usuario.setNombre(String.valueOf(updates.get("nombre")));
+    // Con escrituras agrupadas el reemplazo es un UPDATE de todas las columnas, sin leer antes el usuario
+    private UsuarioDTO actualizarAgrupado(Long id, UsuarioDTO usuarioDetails) {
+        Usuario usuario = new Usuario(id, usuarioDetails.nombre(), usuarioDetails.cedula(), usuarioDetails.email(),
+                RolUsuario.valueOf(usuarioDetails.rol()), usuarioDetails.clase(), null);
+        Map<String, Object> cambios = new LinkedHashMap<>();
+        cambios.put("nombre", usuario.getNombre());
+        cambios.put("cedula", usuario.getCedula());
+        cambios.put("email", usuario.getEmail());
+        cambios.put("rol", usuario.getRol());
+        cambios.put("clase", usuario.getClase());
+
+        if (usuarioEscrituras.actualizar(id, cambios) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id);
         }
+        return convertirADTO(usuario);
+    }
 
-        if (updates.containsKey("email")) {
-            String newEmail = String.valueOf(updates.get("email"));
-            if (usuarioRepository.findByEmail(newEmail).isPresent() && !usuario.getId().equals(id)) {
-                throw new ResponseStatusException(HttpStatus.CONFLICT, "Correo ya está en uso por otro usuario.");
+    //ACTUALIZACION parcial Usuarios (application/json o JSON Merge Patch, RFC 7396)
+    // Los campos enviados se escriben con un solo UPDATE sobre esas columnas, sin SELECT previo:
+    // la unicidad la validan las restricciones y el número de filas modificadas decide el 404.
+    // Un null elimina el valor (solo 'clase' es opcional); los campos desconocidos se ignoran.
+    // Con devolverUsuario en false (Prefer: return=minimal) la solicitud cuesta una sola sentencia.
+    // Sin transacción propia: con escrituras agrupadas no se retiene una conexión mientras se espera el grupo
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, key = "#id", beforeInvocation = true),
+            @CacheEvict(cacheNames = CacheConfig.USUARIOS, key = "#id")})
+    public UsuarioDTO partialUpdateUsuario(Long id, Map<String, Object> updates, boolean devolverUsuario) {
+        Map<String, Object> cambios = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entrada : updates.entrySet()) {
+            String campo = entrada.getKey();
+            if (!CAMPOS_ACTUALIZABLES.contains(campo)) {
+                logger.debug("Campo '{}' ignorado en la actualización parcial del usuario {}", campo, id);
+                continue;
             }
-            usuario.setEmail(newEmail);
+            cambios.put(campo, valorParcial(campo, entrada.getValue()));
         }
 
-        if (updates.containsKey("cedula")) {
-            String newCedula = String.valueOf(updates.get("cedula"));
-            if (usuarioRepository.findByCedula(newCedula).isPresent() && !usuario.getId().equals(id)) {
-                throw new ResponseStatusException(HttpStatus.CONFLICT, "Cédula ya está en uso por otro usuario.");
+        if (cambios.isEmpty()) {
+            if (!usuarioRepository.existsById(id)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id);
             }
-            usuario.setCedula(newCedula);
+        } else if (escribirCampos(id, cambios) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id);
+        } else {
+            usuarioCambios.publicar(UsuarioCambioDTO.modificado(id, camposPublicos(cambios)));
         }
 
-        if (updates.containsKey("rol")) {
-            try {
-                usuario.setRol(RolUsuario.valueOf(String.valueOf(updates.get("rol"))));
-            } catch (IllegalArgumentException e) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Valor de rol no válido.");
-            }
+        if (!devolverUsuario) {
+            return null;
         }
+        return usuarioRepository.findById(id)
+                .map(this::convertirADTO)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado con ID: " + id));
+    }
 
-        if (updates.containsKey("clase")) {
-            usuario.setClase(String.valueOf(updates.get("clase")));
+    // Con escrituras agrupadas el UPDATE se confirma junto con otros y el filtro, el índice y los conteos
+    // los actualiza UsuarioEscrituras, en el orden de confirmación. Si cambian el rol o la clase, el
+    // UPDATE va precedido de un SELECT ... FOR UPDATE de los anteriores, para ajustar los conteos
+    private int escribirCampos(Long id, Map<String, Object> cambios) {
+        if (usuarioEscrituras != null) {
+            return usuarioEscrituras.actualizar(id, cambios);
         }
-
+        int filas;
+        List<UsuarioRepository.RolClase> anterior = new ArrayList<>(1);
         try {
-            Usuario updatedUsuario = usuarioRepository.save(usuario);
-            return convertirADTO(updatedUsuario);
+            if (UsuarioConteos.cambiaGrupo(cambios)) {
+                filas = transactionTemplate.execute(status -> {
+                    anterior.addAll(usuarioRepository.bloquearExistentes(List.of(id)));
+                    return usuarioRepository.actualizarCampos(id, cambios);
+                });
+            } else {
+                filas = usuarioRepository.actualizarCampos(id, cambios);
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw UsuarioConflictos.traducir(e, "Cédula ya está en uso por otro usuario.", "Correo ya está en uso por otro usuario.");
         } catch (Exception e) {
             logger.error("Error inesperado al actualizar usuario con ID {}: {}", id, e.getMessage());
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No se pudo actualizar el usuario");
         }
+        if (filas > 0) {
+            existenciaFiltro.registrar((String) cambios.get("cedula"), (String) cambios.get("email"));
+            usuarioIndice.actualizarCampos(id, cambios);
+            anterior.forEach(rolClase -> conteos.actualizar(rolClase, cambios));
+        }
+        return filas;
     }
 
+    // Solo los campos de UsuarioResponseDTO: la cédula y el rol no salen en el flujo de cambios
+    private static Map<String, Object> camposPublicos(Map<String, Object> cambios) {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        for (String campo : List.of("nombre", "email", "clase")) {
+            if (cambios.containsKey(campo)) {
+                campos.put(campo, cambios.get(campo));
+            }
+        }
+        return campos;
+    }
 
+    // Convierte y valida un valor del PATCH con las mismas reglas de UsuarioDTO
+    private Object valorParcial(String campo, Object valor) {
+        if (valor == null) {
+            if (!"clase".equals(campo)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El campo '" + campo + "' es obligatorio y no puede eliminarse");
+            }
+            return null;
+        }
+        if (valor instanceof Map || valor instanceof List) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El campo '" + campo + "' debe ser un valor simple");
+        }
 
+        String texto = String.valueOf(valor);
+        Set<ConstraintViolation<UsuarioDTO>> violaciones = validator.validateValue(UsuarioDTO.class, campo, texto);
+        if (!violaciones.isEmpty()) {
+            String mensaje = "rol".equals(campo) ? "Valor de rol no válido." : violaciones.iterator().next().getMessage();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, mensaje);
+        }
+        return "rol".equals(campo) ? RolUsuario.valueOf(texto) : texto;
+    }
+
+
+
+
+    private Usuario convertirAEntidad(UsuarioDTO dto, String claveHash) {
+        return new Usuario(
+                null, // El ID lo asigna la secuencia
+                dto.nombre(),
+                dto.cedula(),
+                dto.email(),
+                RolUsuario.valueOf(dto.rol()),
+                dto.clase(),
+                claveHash
+        );
+    }
 
-    private UsuarioDTO convertirADTO(Usuario usuario) {
+    UsuarioDTO convertirADTO(Usuario usuario) {
         return new UsuarioDTO(
                 usuario.getId() != null ? usuario.getId() : 0L,
                 usuario.getNombre() != null ? usuario.getNombre() : "",
@@ -195,11 +944,11 @@ public class UsuarioService{
                 usuario.getEmail() != null ? usuario.getEmail() : "",
                 usuario.getRol() != null ? usuario.getRol().toString() : "ESTUDIANTE", // Asigna un valor por defecto
                 usuario.getClase() != null ? usuario.getClase() : "",
-                usuario.getClave() != null ? usuario.getClave() : ""
+                null // La clave (hash) nunca se devuelve
         );
     }
 
-    private UsuarioResponseDTO convertirDTOResponse(Usuario usuario) {
+    UsuarioResponseDTO convertirDTOResponse(Usuario usuario) {
 
         return new UsuarioResponseDTO(
                 usuario.getId() != null ? usuario.getId() : 0L,
@@ -0,0 +1,132 @@
+package com.uniquindio.api.crud.perf;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Generador de carga HTTP. De lazo cerrado ({@link #ejecutar}): {@code clientes} hilos virtuales
+ * envían solicitudes una tras otra durante el tiempo indicado. De lazo abierto ({@link #ejecutarATasa}):
+ * las solicitudes salen a una tasa fija sin esperar a las anteriores. En ambos se registra la
+ * latencia de cada solicitud.
+ */
+public final class CargaHttp {
+
+    public record Resultado(String nombre, long solicitudes, long errores, double segundos, Histogram latencias) {
+
+        public double porSegundo() {
+            return solicitudes / segundos;
+        }
+
+        public double percentilMs(double percentil) {
+            return latencias.getValueAtPercentile(percentil) / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %10.0f req/s  p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  errores %d",
+                    nombre, porSegundo(), percentilMs(50), percentilMs(99), percentilMs(99.9), errores);
+        }
+    }
+
+    private CargaHttp() {
+    }
+
+    public static HttpClient cliente() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * @param solicitud construye la solicitud a partir de un número aleatorio (p. ej. para elegir un ID)
+     */
+    public static Resultado ejecutar(String nombre, HttpClient cliente, int clientes, Duration duracion,
+                                     Function<Long, HttpRequest> solicitud) throws InterruptedException {
+        Histogram latencias = new ConcurrentHistogram(Duration.ofMinutes(1).toNanos() / 1000, 3);
+        LongAdder errores = new LongAdder();
+        long fin = System.nanoTime() + duracion.toNanos();
+        long inicio = System.nanoTime();
+
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Runnable> tareas = new ArrayList<>(clientes);
+            for (int c = 0; c < clientes; c++) {
+                tareas.add(() -> {
+                    while (System.nanoTime() < fin) {
+                        HttpRequest request = solicitud.apply(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE));
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = cliente.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 500) {
+                                errores.increment();
+                            }
+                        } catch (Exception e) {
+                            errores.increment();
+                        }
+                        latencias.recordValue(Math.min((System.nanoTime() - t0) / 1000, latencias.getHighestTrackableValue()));
+                    }
+                });
+            }
+            tareas.forEach(hilos::submit);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        return new Resultado(nombre, latencias.getTotalCount(), errores.sum(), segundos, latencias);
+    }
+
+    /**
+     * Inicia {@code porSegundo} solicitudes por segundo, cada una en su propio hilo virtual, aunque
+     * las anteriores no hayan terminado. La latencia se mide desde el instante en que debía salir la
+     * solicitud: si el servidor se atrasa, la espera cuenta (sin omisión coordinada).
+     */
+    public static Resultado ejecutarATasa(String nombre, HttpClient cliente, double porSegundo, Duration duracion,
+                                          Function<Long, HttpRequest> solicitud) {
+        Histogram latencias = new ConcurrentHistogram(Duration.ofMinutes(1).toNanos() / 1000, 3);
+        LongAdder errores = new LongAdder();
+        long intervalo = (long) (1e9 / porSegundo);
+        long inicio = System.nanoTime();
+        long fin = inicio + duracion.toNanos();
+
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long n = 0, previsto = inicio; previsto < fin; n++, previsto = inicio + n * intervalo) {
+                long espera = previsto - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                long salida = previsto;
+                hilos.submit(() -> {
+                    try {
+                        HttpRequest request = solicitud.apply(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE));
+                        HttpResponse<Void> response = cliente.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 500) {
+                            errores.increment();
+                        }
+                    } catch (Exception e) {
+                        errores.increment();
+                    }
+                    latencias.recordValue(Math.min((System.nanoTime() - salida) / 1000, latencias.getHighestTrackableValue()));
+                });
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        return new Resultado(nombre, latencias.getTotalCount(), errores.sum(), segundos, latencias);
+    }
+
+    public static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+}
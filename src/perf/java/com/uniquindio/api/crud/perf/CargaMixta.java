@@ -0,0 +1,260 @@
+package com.uniquindio.api.crud.perf;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Prueba de carga de extremo a extremo con control de regresiones. Arranca la aplicación contra H2
+ * en modo MySQL, siembra {@value ComparacionHilos#USUARIOS} usuarios y envía a la vez tráfico de
+ * lazo abierto, a tasa fija, a todos los endpoints de UsuarioController. Por endpoint registra
+ * solicitudes por segundo y latencias p50, p99 y p99.9, y las compara con la línea base guardada:
+ * si alguna empeora más de la tolerancia, o hay errores 5xx, termina con código 1 y falla el build.
+ * <p>
+ * Uso: {@code mvn -Pperf verify} (o {@code -Dregresion.args="60 1.0 src/perf/carga-linea-base.properties"}:
+ * segundos, escala de las tasas y archivo de línea base). Con {@code -Dregresion.actualizar=true}
+ * los resultados reemplazan la línea base. Los resultados quedan en target/carga/resultados.properties.
+ * <p>
+ * BCrypt corre con el costo 4 de ContextoEmbebido para que la siembra y las escrituras no midan solo
+ * el hash; su costo real se mide en UsuarioClaveBenchmark. La línea base solo vale para la máquina donde se tomó.
+ */
+public final class CargaMixta {
+
+    private static final int USUARIOS = ComparacionHilos.USUARIOS;
+    private static final Duration CALENTAMIENTO = Duration.ofSeconds(10);
+    private static final int MUESTRAS_MINIMAS = 10;
+
+    // Lecturas y actualizaciones sobre el 80 % de los IDs sembrados; el resto se elimina durante la prueba
+    private static final long LEIDOS = USUARIOS * 8L / 10;
+    private static final long ELIMINADOS_UNO_A_UNO = USUARIOS * 9L / 10;
+
+    private static final String COMENTARIO_LINEA_BASE = """
+            Línea base de CargaMixta (mvn -Pperf verify). Las mediciones se reemplazan con
+            -Dregresion.actualizar=true; solo son comparables en la misma máquina.
+            Una latencia es regresión si supera la base en más de 'latencia' (fracción) y 'margen-ms';
+            el rendimiento, si cae más de 'rendimiento' (fracción) bajo la base""";
+
+    private record Escenario(String nombre, double porSegundo, Function<Long, HttpRequest> solicitud) {
+    }
+
+    private CargaMixta() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Duration duracion = Duration.ofSeconds(args.length > 0 ? Long.parseLong(args[0]) : 60);
+        double escala = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        Path archivoBase = Path.of(args.length > 2 ? args[2] : "src/perf/carga-linea-base.properties");
+        boolean actualizar = Boolean.getBoolean("regresion.actualizar");
+
+        List<CargaHttp.Resultado> resultados;
+        ConfigurableApplicationContext contexto = ContextoEmbebido.iniciarServidor("carga");
+        try (HttpClient cliente = CargaHttp.cliente()) {
+            String base = "http://localhost:" + ContextoEmbebido.puerto(contexto) + "/CRUD/api/usuarios";
+            ComparacionHilos.sembrar(cliente, base);
+
+            List<Escenario> escenarios = escenarios(base, escala);
+            ejecutar(cliente, escenarios, CALENTAMIENTO);
+            resultados = ejecutar(cliente, escenarios, duracion);
+
+            System.out.println();
+            System.out.println("Duración: " + duracion.toSeconds() + " s, escala de tasas: " + escala);
+            for (int i = 0; i < escenarios.size(); i++) {
+                System.out.printf("%s  (ofrecido %.1f req/s)%n", resultados.get(i), escenarios.get(i).porSegundo());
+            }
+        } finally {
+            contexto.close();
+        }
+
+        Properties medidos = propiedades(resultados);
+        Path salida = Path.of("target", "carga", "resultados.properties");
+        guardar(medidos, salida, "Resultados de CargaMixta");
+
+        Properties lineaBase = new Properties();
+        if (Files.exists(archivoBase)) {
+            try (Reader reader = Files.newBufferedReader(archivoBase, StandardCharsets.UTF_8)) {
+                lineaBase.load(reader);
+            }
+        }
+        if (actualizar) {
+            // Las tolerancias se conservan; solo se reemplazan las mediciones
+            medidos.stringPropertyNames().forEach(clave -> lineaBase.setProperty(clave, medidos.getProperty(clave)));
+            guardar(lineaBase, archivoBase, COMENTARIO_LINEA_BASE);
+            System.out.println("Línea base actualizada en " + archivoBase);
+            return;
+        }
+
+        List<String> regresiones = comparar(resultados, lineaBase);
+        if (!regresiones.isEmpty()) {
+            System.out.println();
+            System.out.println("Regresiones respecto a " + archivoBase + ":");
+            regresiones.forEach(regresion -> System.out.println("  " + regresion));
+            System.exit(1);
+        }
+        System.out.println("Sin regresiones respecto a " + archivoBase);
+    }
+
+    private static List<Escenario> escenarios(String base, double escala) {
+        AtomicLong creados = new AtomicLong();
+        AtomicLong eliminados = new AtomicLong(LEIDOS);
+        AtomicLong eliminadosEnBloque = new AtomicLong(ELIMINADOS_UNO_A_UNO);
+
+        List<Escenario> escenarios = List.of(
+                new Escenario("getUsuarioById", 25, n -> CargaHttp.get(base + "/" + id(n))),
+                new Escenario("getAllUsuarios", 5, n -> CargaHttp.get(base + "?page=" + n % 100 + "&size=20")),
+                new Escenario("searchUsuarios", 3, n -> CargaHttp.get(base + "/search?rol=ESTUDIANTE&clase="
+                        + codificar("Programación " + (n % 4 + 1)) + "&nombre=" + codificar("Usuario " + n % 100))),
+                new Escenario("typeaheadUsuarios", 8, n -> CargaHttp.get(base + "/typeahead?q="
+                        + codificar("suario " + n % 1000))),
+                new Escenario("getConteos", 1, n -> CargaHttp.get(base + "/aggregates")),
+                new Escenario("exportUsuarios", 0.2, n -> CargaHttp.get(base + "/export?desde=" + (LEIDOS - 500))),
+                new Escenario("createUsuario", 2, n -> enviar("POST", base, usuarioNuevo(creados.incrementAndGet()))),
+                new Escenario("createUsuarios", 0.2, n -> enviar("POST", base + "/batch",
+                        LongStream.range(0, 20).mapToObj(i -> usuarioNuevo(creados.incrementAndGet()))
+                                .collect(Collectors.joining(",", "[", "]")))),
+                new Escenario("verificarClave", 2, n -> enviar("POST", base + "/" + id(n) + "/verify-password",
+                        "{\"clave\":\"clave" + (id(n) - 1) + "\"}")),
+                new Escenario("updateUsuario", 2, n -> enviar("PUT", base + "/" + id(n), usuarioSembrado(id(n) - 1, n))),
+                new Escenario("partialUpdateUsuario", 3, n -> enviar("PATCH", base + "/" + id(n),
+                        "{\"nombre\":\"Usuario editado " + n % 1000 + "\"}")),
+                new Escenario("deleteUsuario", 1, n -> HttpRequest.newBuilder(
+                        URI.create(base + "/" + eliminados.incrementAndGet())).DELETE().build()),
+                new Escenario("deleteUsuarios", 0.2, n -> {
+                    String ids = LongStream.range(0, 10).mapToObj(i -> Long.toString(eliminadosEnBloque.incrementAndGet()))
+                            .collect(Collectors.joining(","));
+                    return HttpRequest.newBuilder(URI.create(base + "?ids=" + ids)).DELETE().build();
+                }));
+        return escenarios.stream()
+                .map(escenario -> new Escenario(escenario.nombre(), escenario.porSegundo() * escala, escenario.solicitud()))
+                .toList();
+    }
+
+    // Todos los escenarios corren a la vez, cada uno a su tasa
+    private static List<CargaHttp.Resultado> ejecutar(HttpClient cliente, List<Escenario> escenarios, Duration duracion)
+            throws Exception {
+        List<Future<CargaHttp.Resultado>> pendientes = new ArrayList<>();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Escenario escenario : escenarios) {
+                pendientes.add(hilos.submit(() -> CargaHttp.ejecutarATasa(escenario.nombre(), cliente,
+                        escenario.porSegundo(), duracion, escenario.solicitud())));
+            }
+        }
+        List<CargaHttp.Resultado> resultados = new ArrayList<>();
+        for (Future<CargaHttp.Resultado> pendiente : pendientes) {
+            resultados.add(pendiente.get());
+        }
+        return resultados;
+    }
+
+    private static List<String> comparar(List<CargaHttp.Resultado> resultados, Properties lineaBase) {
+        double toleranciaLatencia = Double.parseDouble(lineaBase.getProperty("tolerancia.latencia", "0.30"));
+        double toleranciaRendimiento = Double.parseDouble(lineaBase.getProperty("tolerancia.rendimiento", "0.10"));
+        // Por debajo de este margen una diferencia de latencia se considera ruido
+        double margenMs = Double.parseDouble(lineaBase.getProperty("tolerancia.margen-ms", "2"));
+
+        List<String> regresiones = new ArrayList<>();
+        for (CargaHttp.Resultado resultado : resultados) {
+            String nombre = resultado.nombre();
+            if (resultado.errores() > 0) {
+                regresiones.add(nombre + ": " + resultado.errores() + " errores");
+            }
+            if (lineaBase.getProperty(nombre + ".porSegundo") == null) {
+                System.out.println("Sin línea base para " + nombre);
+                continue;
+            }
+            double porSegundo = Double.parseDouble(lineaBase.getProperty(nombre + ".porSegundo"));
+            if (resultado.porSegundo() < porSegundo * (1 - toleranciaRendimiento)) {
+                regresiones.add(String.format("%s: %.1f req/s, línea base %.1f req/s", nombre, resultado.porSegundo(), porSegundo));
+            }
+            for (String percentil : List.of("p50", "p99", "p999")) {
+                // Un percentil se controla solo con al menos 10 muestras por encima de él: con menos,
+                // p99 o p99.9 es casi el máximo y varía de una ejecución a otra
+                if (resultado.solicitudes() * (100 - percentil(percentil)) / 100 < MUESTRAS_MINIMAS) {
+                    continue;
+                }
+                double medido = resultado.percentilMs(percentil(percentil));
+                double referencia = Double.parseDouble(lineaBase.getProperty(nombre + "." + percentil, "0"));
+                if (medido > referencia * (1 + toleranciaLatencia) + margenMs) {
+                    regresiones.add(String.format("%s: %s %.2f ms, línea base %.2f ms", nombre, percentil, medido, referencia));
+                }
+            }
+        }
+        return regresiones;
+    }
+
+    private static Properties propiedades(List<CargaHttp.Resultado> resultados) {
+        Properties propiedades = new Properties();
+        for (CargaHttp.Resultado resultado : resultados) {
+            propiedades.setProperty(resultado.nombre() + ".porSegundo", String.format("%.1f", resultado.porSegundo()));
+            for (String percentil : List.of("p50", "p99", "p999")) {
+                propiedades.setProperty(resultado.nombre() + "." + percentil,
+                        String.format("%.2f", resultado.percentilMs(percentil(percentil))));
+            }
+        }
+        return propiedades;
+    }
+
+    private static double percentil(String nombre) {
+        return switch (nombre) {
+            case "p50" -> 50;
+            case "p99" -> 99;
+            default -> 99.9;
+        };
+    }
+
+    private static void guardar(Properties propiedades, Path archivo, String comentario) throws IOException {
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            propiedades.store(writer, comentario);
+        }
+    }
+
+    private static long id(long n) {
+        return n % LEIDOS + 1;
+    }
+
+    private static String codificar(String texto) {
+        return URLEncoder.encode(texto, StandardCharsets.UTF_8);
+    }
+
+    private static HttpRequest enviar(String metodo, String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .method(metodo, HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String usuarioNuevo(long k) {
+        return String.format("{\"nombre\":\"Usuario nuevo %d\",\"cedula\":\"%d\",\"email\":\"n%d@uniquindio.edu.co\","
+                + "\"rol\":\"ESTUDIANTE\",\"clase\":\"Programación 1\",\"clave\":\"clave%d\"}", k, 2_000_000_000L + k, k, k);
+    }
+
+    // Mismos cédula y correo que en la siembra, para que el reemplazo no choque con otro usuario
+    private static String usuarioSembrado(long i, long n) {
+        return String.format("{\"nombre\":\"Usuario reemplazado %d\",\"cedula\":\"%d\",\"email\":\"u%d@uniquindio.edu.co\","
+                        + "\"rol\":\"%s\",\"clase\":\"Programación %d\",\"clave\":\"clave%d\"}",
+                n % 1000, 1_000_000_000L + i, i, i % 10 == 0 ? "PROFESOR" : "ESTUDIANTE", i % 4 + 1, i);
+    }
+}
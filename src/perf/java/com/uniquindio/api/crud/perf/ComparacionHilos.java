@@ -0,0 +1,76 @@
+package com.uniquindio.api.crud.perf;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Prueba de carga que compara el pool de hilos de plataforma de Tomcat con hilos virtuales
+ * ({@code spring.threads.virtual.enabled}) a la misma concurrencia de clientes.
+ * <p>
+ * Uso: {@code mvn -Pperf compile exec:exec@carga-hilos -Dcarga.args="5000 30"} (clientes, segundos).
+ * Cliente y servidor comparten la máquina, así que los números sirven para comparar modos,
+ * no como capacidad absoluta.
+ */
+public final class ComparacionHilos {
+
+    static final int USUARIOS = 10_000;
+
+    private ComparacionHilos() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        Duration duracion = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 30);
+
+        List<CargaHttp.Resultado> resultados = new ArrayList<>();
+        for (boolean virtuales : new boolean[]{false, true}) {
+            String modo = virtuales ? "hilos virtuales" : "hilos de plataforma";
+            ConfigurableApplicationContext contexto = ContextoEmbebido.iniciarServidor("hilos" + virtuales,
+                    "--spring.threads.virtual.enabled=" + virtuales,
+                    "--server.tomcat.max-connections=" + (clientes + 1000));
+            try (HttpClient cliente = CargaHttp.cliente()) {
+                String base = "http://localhost:" + ContextoEmbebido.puerto(contexto) + "/CRUD/api/usuarios";
+                sembrar(cliente, base);
+
+                // Mezcla de lecturas: por ID (mayormente caché) y páginas del listado (siempre base de datos)
+                java.util.function.Function<Long, HttpRequest> mezcla = n -> n % 4 == 0
+                        ? CargaHttp.get(base + "?page=" + (n % 100) + "&size=20")
+                        : CargaHttp.get(base + "/" + (n % USUARIOS + 1));
+
+                CargaHttp.ejecutar("calentamiento", cliente, Math.min(clientes, 200), Duration.ofSeconds(5), mezcla);
+                resultados.add(CargaHttp.ejecutar(modo, cliente, clientes, duracion, mezcla));
+            } finally {
+                contexto.close();
+            }
+        }
+
+        System.out.println();
+        System.out.println("Clientes concurrentes: " + clientes + ", duración: " + duracion.toSeconds() + " s");
+        resultados.forEach(System.out::println);
+    }
+
+    static void sembrar(HttpClient cliente, String base) throws Exception {
+        String lote = IntStream.range(0, USUARIOS)
+                .mapToObj(i -> String.format(
+                        "{\"nombre\":\"Usuario %d\",\"cedula\":\"%d\",\"email\":\"u%d@uniquindio.edu.co\","
+                                + "\"rol\":\"%s\",\"clase\":\"Programación %d\",\"clave\":\"clave%d\"}",
+                        i, 1_000_000_000L + i, i, i % 10 == 0 ? "PROFESOR" : "ESTUDIANTE", i % 4 + 1, i))
+                .collect(Collectors.joining(",", "[", "]"));
+        HttpResponse<String> response = cliente.send(HttpRequest.newBuilder(URI.create(base + "/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(lote))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("No se pudieron sembrar los usuarios: " + response.statusCode());
+        }
+    }
+}
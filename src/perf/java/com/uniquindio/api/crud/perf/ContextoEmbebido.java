@@ -0,0 +1,59 @@
+package com.uniquindio.api.crud.perf;
+
+import com.uniquindio.api.crud.CrudApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arranca la aplicación contra una base H2 en memoria en modo MySQL, para que los benchmarks
+ * y las pruebas de carga no dependan de una instancia de MySQL.
+ * <p>
+ * BCrypt corre con costo 4 salvo que se pase otro {@code --usuarios.claves.costo}: con el costo de
+ * producción las mediciones de escritura serían casi solo el hash, que se mide en UsuarioClaveBenchmark.
+ */
+public final class ContextoEmbebido {
+
+    private ContextoEmbebido() {
+    }
+
+    /** Contexto sin servidor web, para medir servicios y repositorios directamente. */
+    public static ConfigurableApplicationContext iniciar(String nombreBase, String... propiedades) {
+        return iniciar(WebApplicationType.NONE, nombreBase, propiedades);
+    }
+
+    /** Contexto con Tomcat en un puerto libre; el puerto queda en {@link #puerto}. */
+    public static ConfigurableApplicationContext iniciarServidor(String nombreBase, String... propiedades) {
+        List<String> conPuerto = new ArrayList<>(List.of(propiedades));
+        conPuerto.add(0, "--server.port=0");
+        return iniciar(WebApplicationType.SERVLET, nombreBase, conPuerto.toArray(String[]::new));
+    }
+
+    public static int puerto(ConfigurableApplicationContext contexto) {
+        return Integer.parseInt(contexto.getEnvironment().getProperty("local.server.port"));
+    }
+
+    private static ConfigurableApplicationContext iniciar(WebApplicationType tipo, String nombreBase, String... propiedades) {
+        SpringApplication app = new SpringApplication(CrudApplication.class);
+        app.setWebApplicationType(tipo);
+        app.setBannerMode(Banner.Mode.OFF);
+
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + nombreBase + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--usuarios.claves.costo=4",
+                "--logging.level.root=WARN"
+        ));
+        args.addAll(List.of(propiedades));
+        return app.run(args.toArray(String[]::new));
+    }
+}
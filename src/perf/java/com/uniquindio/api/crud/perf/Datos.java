@@ -0,0 +1,25 @@
+package com.uniquindio.api.crud.perf;
+
+import com.uniquindio.api.crud.dto.UsuarioDTO;
+import com.uniquindio.api.crud.model.RolUsuario;
+import com.uniquindio.api.crud.model.Usuario;
+
+/**
+ * Datos de ejemplo compartidos por los benchmarks.
+ */
+public final class Datos {
+
+    private Datos() {
+    }
+
+    public static Usuario usuario(long id) {
+        return new Usuario(id, "Usuario de Prueba " + id, Long.toString(1_000_000_000L + id),
+                "usuario" + id + "@uniquindio.edu.co", id % 10 == 0 ? RolUsuario.PROFESOR : RolUsuario.ESTUDIANTE,
+                "Programación " + (id % 4 + 1), "clave" + id);
+    }
+
+    public static UsuarioDTO usuarioDTO(long id) {
+        return new UsuarioDTO(null, "Usuario de Prueba " + id, Long.toString(1_000_000_000L + id),
+                "usuario" + id + "@uniquindio.edu.co", "ESTUDIANTE", "Programación " + (id % 4 + 1), "clave" + id);
+    }
+}
@@ -0,0 +1,29 @@
+package com.uniquindio.api.crud.perf;
+
+import com.uniquindio.api.crud.model.Usuario;
+import com.uniquindio.api.crud.repository.UsuarioRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link UsuarioRepository} en memoria para medir solo el trabajo de CPU del servicio.
+ * Responde {@code findById} desde un mapa fijo; cualquier otro método falla.
+ */
+public final class RepositorioStub {
+
+    private RepositorioStub() {
+    }
+
+    public static UsuarioRepository con(Map<Long, Usuario> usuarios) {
+        return (UsuarioRepository) Proxy.newProxyInstance(
+                UsuarioRepository.class.getClassLoader(),
+                new Class<?>[]{UsuarioRepository.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "findById" -> Optional.ofNullable(usuarios.get((Long) args[0]));
+                    case "toString" -> "RepositorioStub";
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+    }
+}
@@ -0,0 +1,63 @@
+package com.uniquindio.api.crud.perf;
+
+import com.uniquindio.api.crud.services.UsuarioClaves;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Latencia y rendimiento del hash BCrypt de claves según el costo (work factor):
+ * <ul>
+ *     <li>{@code hashear}: un hash en el hilo que llama; la latencia que paga una creación individual.</li>
+ *     <li>{@code hashearLote}: {@value #LOTE} claves repartidas en el pool de {@link UsuarioClaves}
+ *     (un hilo por núcleo), como en la creación por lotes; se reporta en hashes por segundo.</li>
+ * </ul>
+ * Cada punto de costo duplica el trabajo; elegir el mayor que mantenga la latencia aceptable.
+ */
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsuarioClaveBenchmark {
+
+    static final int LOTE = 16;
+
+    @Param({"8", "10", "12"})
+    private int costo;
+
+    private BCryptPasswordEncoder encoder;
+    private UsuarioClaves claves;
+    private List<String> lote;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        encoder = new BCryptPasswordEncoder(costo);
+        claves = new UsuarioClaves(new SimpleMeterRegistry(), costo, 0, 1000, 0, Duration.ofMinutes(5));
+        lote = IntStream.range(0, LOTE).mapToObj(i -> "clave-" + i).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        claves.cerrar();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String hashear() {
+        return encoder.encode("clave-segura");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(LOTE)
+    public List<String> hashearLote() {
+        return claves.hashear(lote);
+    }
+}
@@ -0,0 +1,70 @@
+package com.uniquindio.api.crud.perf;
+
+import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import com.uniquindio.api.crud.model.RolUsuario;
+import com.uniquindio.api.crud.model.Usuario;
+import com.uniquindio.api.crud.repository.UsuarioRepository;
+import com.uniquindio.api.crud.services.UsuarioClaves;
+import com.uniquindio.api.crud.services.UsuarioService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencia de crear un usuario con inserciones concurrentes: el camino anterior
+ * (existsByCedula + existsByEmail + INSERT) frente a un único INSERT que delega
+ * la unicidad en las restricciones de la tabla. Los dos caminos hashean la clave, con el costo 4 de
+ * ContextoEmbebido, para que la diferencia sea solo la de las consultas.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class UsuarioEscrituraBenchmark {
+
+    private final AtomicLong secuencia = new AtomicLong(1_000_000_000L);
+
+    private ConfigurableApplicationContext contexto;
+    private UsuarioService usuarioService;
+    private UsuarioRepository usuarioRepository;
+    private UsuarioClaves usuarioClaves;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = ContextoEmbebido.iniciar("escritura");
+        usuarioService = contexto.getBean(UsuarioService.class);
+        usuarioRepository = contexto.getBean(UsuarioRepository.class);
+        usuarioClaves = contexto.getBean(UsuarioClaves.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Usuario verificarYGuardar() {
+        Usuario usuario = nuevoUsuario();
+        if (usuarioRepository.existsByCedula(usuario.getCedula()) || usuarioRepository.existsByEmail(usuario.getEmail())) {
+            throw new IllegalStateException("Cédula o correo duplicado");
+        }
+        usuario.setClave(usuarioClaves.hashear(usuario.getClave()));
+        return usuarioRepository.save(usuario);
+    }
+
+    @Benchmark
+    public UsuarioResponseDTO guardarConRestriccion() {
+        return usuarioService.save(nuevoUsuario());
+    }
+
+    private Usuario nuevoUsuario() {
+        long n = secuencia.incrementAndGet();
+        return new Usuario(null, "Usuario " + n, Long.toString(n), "u" + n + "@uniquindio.edu",
+                RolUsuario.ESTUDIANTE, "Programación I", "clave" + n);
+    }
+}
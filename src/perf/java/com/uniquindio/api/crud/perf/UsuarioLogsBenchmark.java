@@ -0,0 +1,115 @@
+package com.uniquindio.api.crud.perf;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.JsonEncoder;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.uniquindio.api.crud.config.MuestreoLogsTurboFilter;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de los logs de una solicitud (los tres INFO de {@code GET /{id}}) en el hilo que atiende,
+ * con cuatro hilos escribiendo a la vez:
+ * <ul>
+ *     <li>{@code sincrono}: la configuración anterior, patrón de texto de Spring Boot escrito y
+ *     vaciado en el hilo de la solicitud.</li>
+ *     <li>{@code asincrono}: JSON detrás de un {@link AsyncAppender} que nunca bloquea.</li>
+ *     <li>{@code muestreado}: lo anterior más {@link MuestreoLogsTurboFilter} con 5% de solicitudes.</li>
+ * </ul>
+ * Los logs se escriben en un archivo temporal para medir la escritura real y no la de la terminal.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class UsuarioLogsBenchmark {
+
+    private static final double TASA_MUESTREO = 0.05;
+
+    @Param({"sincrono", "asincrono", "muestreado"})
+    private String modo;
+
+    private LoggerContext contexto;
+    private Logger logger;
+    private Path archivo;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        contexto = new LoggerContext();
+        archivo = Files.createTempFile("usuarios-logs", ".log");
+
+        Encoder<ILoggingEvent> encoder;
+        if ("sincrono".equals(modo)) {
+            PatternLayoutEncoder patron = new PatternLayoutEncoder();
+            patron.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n");
+            encoder = patron;
+        } else {
+            encoder = new JsonEncoder();
+        }
+        encoder.setContext(contexto);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> archivoAppender = new FileAppender<>();
+        archivoAppender.setContext(contexto);
+        archivoAppender.setFile(archivo.toString());
+        archivoAppender.setEncoder(encoder);
+        archivoAppender.setImmediateFlush(true);
+        archivoAppender.start();
+
+        Appender<ILoggingEvent> appender = archivoAppender;
+        if (!"sincrono".equals(modo)) {
+            AsyncAppender asincrono = new AsyncAppender();
+            asincrono.setContext(contexto);
+            asincrono.setQueueSize(8192);
+            asincrono.setNeverBlock(true);
+            asincrono.addAppender(archivoAppender);
+            asincrono.start();
+            appender = asincrono;
+        }
+        if ("muestreado".equals(modo)) {
+            MuestreoLogsTurboFilter filtro = new MuestreoLogsTurboFilter();
+            filtro.setContext(contexto);
+            filtro.start();
+            contexto.addTurboFilter(filtro);
+        }
+
+        ch.qos.logback.classic.Logger raiz = contexto.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        raiz.setLevel(ch.qos.logback.classic.Level.INFO);
+        raiz.addAppender(appender);
+        logger = contexto.getLogger("com.uniquindio.api.crud.controller.UsuarioController");
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        contexto.stop();
+        Files.deleteIfExists(archivo);
+    }
+
+    @Benchmark
+    public void solicitud() {
+        long id = ThreadLocalRandom.current().nextLong(1, 10_000);
+        if ("muestreado".equals(modo)) {
+            MDC.put(MuestreoLogsTurboFilter.MDC_MUESTREO, ThreadLocalRandom.current().nextDouble() < TASA_MUESTREO
+                    ? MuestreoLogsTurboFilter.MUESTREADA : MuestreoLogsTurboFilter.DESCARTADA);
+        }
+        logger.info("Solicitud recibida para obtener usuario con ID: {}", id);
+        logger.info("Buscando usuario con ID: {}", id);
+        logger.info("Usuario encontrado con ID: {}", id);
+        MDC.remove(MuestreoLogsTurboFilter.MDC_MUESTREO);
+    }
+}
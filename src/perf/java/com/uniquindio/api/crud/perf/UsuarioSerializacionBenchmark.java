@@ -0,0 +1,79 @@
+package com.uniquindio.api.crud.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uniquindio.api.crud.dto.UsuarioPaginaDTO;
+import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialización Jackson de la respuesta de GET /api/usuarios en cada formato negociable, con los
+ * mismos ObjectMapper que construye Spring MVC:
+ * <ul>
+ *   <li>{@code page}: el {@code Page<UsuarioResponseDTO>} completo en JSON (Accept: application/json)</li>
+ *   <li>{@code compacto}: {@link UsuarioPaginaDTO} en JSON (application/vnd.usuarios.pagina+json)</li>
+ *   <li>{@code cbor} y {@code smile}: {@link UsuarioPaginaDTO} en binario</li>
+ * </ul>
+ * {@code serializarGzip} añade la compresión que aplica Tomcat por encima de
+ * server.compression.min-response-size. Los bytes de cada formato, sin comprimir y con gzip, se
+ * imprimen al iniciar cada prueba.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsuarioSerializacionBenchmark {
+
+    @Param({"10", "100"})
+    int tamanoPagina;
+
+    @Param({"page", "compacto", "cbor", "smile"})
+    String formato;
+
+    private ObjectMapper objectMapper;
+    private Object cuerpo;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        objectMapper = switch (formato) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        List<UsuarioResponseDTO> contenido = LongStream.rangeClosed(1, tamanoPagina)
+                .mapToObj(Datos::usuario)
+                .map(u -> new UsuarioResponseDTO(u.getId(), u.getNombre(), u.getEmail(), u.getClase()))
+                .toList();
+        Page<UsuarioResponseDTO> pagina = new PageImpl<>(contenido, PageRequest.of(3, tamanoPagina), 10_000);
+        cuerpo = formato.equals("page") ? pagina : UsuarioPaginaDTO.de(pagina);
+
+        System.out.printf("%n%s, %d usuarios: %d bytes, %d bytes con gzip%n", formato, tamanoPagina,
+                serializarPagina().length, serializarGzip().length);
+    }
+
+    @Benchmark
+    public byte[] serializarPagina() throws IOException {
+        return objectMapper.writeValueAsBytes(cuerpo);
+    }
+
+    @Benchmark
+    public byte[] serializarGzip() throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            objectMapper.writeValue(gzip, cuerpo);
+        }
+        return salida.toByteArray();
+    }
+}
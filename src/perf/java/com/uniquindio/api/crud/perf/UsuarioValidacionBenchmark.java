@@ -0,0 +1,52 @@
+package com.uniquindio.api.crud.perf;
+
+import com.uniquindio.api.crud.dto.UsuarioDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de Bean Validation sobre {@link UsuarioDTO} (incluye los {@code @Pattern} de cédula y rol
+ * y el {@code @Email}) para un DTO válido y para uno que viola varias restricciones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsuarioValidacionBenchmark {
+
+    private ValidatorFactory fabrica;
+    private Validator validator;
+    private UsuarioDTO valido;
+    private UsuarioDTO invalido;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        fabrica = Validation.buildDefaultValidatorFactory();
+        validator = fabrica.getValidator();
+        valido = Datos.usuarioDTO(1);
+        invalido = new UsuarioDTO(null, "Jo", "12a45", "no-es-un-correo", "ADMIN", null, "123");
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        fabrica.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UsuarioDTO>> validarValido() {
+        return validator.validate(valido);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UsuarioDTO>> validarInvalido() {
+        return validator.validate(invalido);
+    }
+}
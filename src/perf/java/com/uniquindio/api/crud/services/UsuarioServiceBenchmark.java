@@ -0,0 +1,65 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.dto.UsuarioDTO;
+import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import com.uniquindio.api.crud.dto.UsuarioVersionadoDTO;
+import com.uniquindio.api.crud.model.Usuario;
+import com.uniquindio.api.crud.perf.Datos;
+import com.uniquindio.api.crud.perf.RepositorioStub;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trabajo de CPU de {@link UsuarioService} con el repositorio reemplazado por un stub en memoria:
+ * conversión entidad → DTO y el camino de {@code findById} que termina en ResponseStatusException.
+ * El log se limita a ERROR para no medir la escritura en consola.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UsuarioServiceBenchmark {
+
+    private UsuarioService usuarioService;
+    private Usuario usuario;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.ERROR);
+        usuario = Datos.usuario(1);
+        usuarioService = new UsuarioService();
+        usuarioService.usuarioRepository = RepositorioStub.con(Map.of(1L, usuario));
+    }
+
+    @Benchmark
+    public UsuarioResponseDTO convertirDTOResponse() {
+        return usuarioService.convertirDTOResponse(usuario);
+    }
+
+    @Benchmark
+    public UsuarioDTO convertirADTO() {
+        return usuarioService.convertirADTO(usuario);
+    }
+
+    @Benchmark
+    public UsuarioVersionadoDTO findByIdEncontrado() {
+        return usuarioService.findById(1L);
+    }
+
+    @Benchmark
+    public ResponseStatusException findByIdNoEncontrado() {
+        try {
+            usuarioService.findById(2L);
+            throw new IllegalStateException("Se esperaba 404");
+        } catch (ResponseStatusException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.uniquindio.api.crud;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * El mismo recorrido con las réplicas de lectura activas ("embedded,replicas"): las lecturas sin la
+ * cookie de lectura propia van a la réplica local.
+ */
+@ActiveProfiles("replicas")
+class UsuarioApiReplicasSmokeTest extends UsuarioApiSmokeTest {
+}
@@ -0,0 +1,117 @@
+package com.uniquindio.api.crud;
+
+import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Arranca la aplicación completa con el perfil "embedded" (H2 en memoria) y recorre el ciclo de vida
+ * de un usuario por HTTP: crear, leer, actualizar parcialmente y eliminar.
+ */
+// Puerto libre también para el servidor reactivo: cada perfil arranca su propio contexto
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "usuarios.reactivo.puerto=0")
+@ActiveProfiles("embedded")
+class UsuarioApiSmokeTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Test
+    void crearLeerActualizarYEliminar() {
+        String cedula = Long.toString(System.nanoTime() % 1_000_000_000L);
+
+        UsuarioResponseDTO creado = cliente.post().uri("/api/usuarios")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("nombre", "Laura Gómez", "cedula", cedula, "email", "laura" + cedula + "@uniquindio.edu.co",
+                        "rol", "ESTUDIANTE", "clase", "Programación I", "clave", "Secreta123"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(UsuarioResponseDTO.class).returnResult().getResponseBody();
+        assertThat(creado).isNotNull();
+        Long id = creado.id();
+
+        cliente.get().uri("/api/usuarios/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(id)
+                .jsonPath("$.nombre").isEqualTo("Laura Gómez");
+
+        cliente.patch().uri("/api/usuarios/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("nombre", "Laura Gómez Ruiz"))
+                .exchange()
+                .expectStatus().isOk();
+
+        cliente.get().uri("/api/usuarios/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.nombre").isEqualTo("Laura Gómez Ruiz");
+
+        cliente.delete().uri("/api/usuarios/{id}", id)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        cliente.get().uri("/api/usuarios/{id}", id)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void listadoConEtagRespondeNoModificadoHastaQueCambiaLaPagina() {
+        String cedula = Long.toString(System.nanoTime() % 1_000_000_000L);
+        UsuarioResponseDTO creado = cliente.post().uri("/api/usuarios")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("nombre", "Mario Ríos", "cedula", cedula, "email", "mario" + cedula + "@uniquindio.edu.co",
+                        "rol", "ESTUDIANTE", "clase", "Programación I", "clave", "Secreta123"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(UsuarioResponseDTO.class).returnResult().getResponseBody();
+        assertThat(creado).isNotNull();
+        // Página por cursor que empieza justo en el usuario creado
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(creado.id() - 1).getBytes(StandardCharsets.UTF_8));
+
+        // Sin If-None-Match el ETag sale de la página cargada; reenviado, coincide con el de solo ID y versiones
+        String etagPagina = cliente.get().uri("/api/usuarios?page=0&size=5").exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertThat(etagPagina).isNotNull();
+        cliente.get().uri("/api/usuarios?page=0&size=5").ifNoneMatch(etagPagina).exchange()
+                .expectStatus().isNotModified();
+
+        String etagCursor = cliente.get().uri("/api/usuarios?after={cursor}&size=1", cursor).exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertThat(etagCursor).isNotNull();
+        cliente.get().uri("/api/usuarios?after={cursor}&size=1", cursor).ifNoneMatch(etagCursor).exchange()
+                .expectStatus().isNotModified();
+
+        cliente.patch().uri("/api/usuarios/{id}", creado.id())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("nombre", "Mario Ríos Díaz"))
+                .exchange()
+                .expectStatus().isOk();
+
+        String nuevo = cliente.get().uri("/api/usuarios?after={cursor}&size=1", cursor).ifNoneMatch(etagCursor).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].nombre").isEqualTo("Mario Ríos Díaz")
+                .returnResult().getResponseHeaders().getETag();
+        assertThat(nuevo).isNotNull().isNotEqualTo(etagCursor);
+    }
+}
@@ -0,0 +1,63 @@
+package com.uniquindio.api.crud;
+
+import com.uniquindio.api.crud.services.UsuarioEsquema;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Duplicados de cédula y correo: responden 409 aunque la base tenga además las restricciones únicas
+ * con nombre generado que dejaban las versiones anteriores ({@code @Column(unique = true)}).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "usuarios.reactivo.puerto=0")
+@ActiveProfiles("embedded")
+class UsuarioConflictosTest {
+
+    @Autowired
+    private WebTestClient cliente;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UsuarioEsquema usuarioEsquema;
+
+    @Test
+    void duplicadoConRestriccionesHeredadasResponde409() {
+        jdbcTemplate.execute("alter table usuarios add constraint UK_kfsp0s1tflm1cwlj8idhqsad0 unique (cedula)");
+        jdbcTemplate.execute("alter table usuarios add constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email)");
+        usuarioEsquema.ajustar();
+
+        assertThat(jdbcTemplate.queryForList("""
+                select lower(constraint_name) from information_schema.table_constraints
+                where lower(table_name) = 'usuarios' and constraint_type = 'UNIQUE'""", String.class))
+                .containsExactlyInAnyOrder("uk_usuarios_cedula", "uk_usuarios_email");
+
+        String cedula = Long.toString(System.nanoTime() % 1_000_000_000L);
+        crear(cedula, "dup" + cedula + "@uniquindio.edu.co").expectStatus().isCreated();
+
+        crear(cedula, "otro" + cedula + "@uniquindio.edu.co")
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody().jsonPath("$.message").isEqualTo("La cédula ya está registrada");
+        crear(cedula + "1", "dup" + cedula + "@uniquindio.edu.co")
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody().jsonPath("$.message").isEqualTo("El correo ya está registrado");
+    }
+
+    private WebTestClient.ResponseSpec crear(String cedula, String email) {
+        return cliente.post().uri("/api/usuarios")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("nombre", "Usuario Duplicado", "cedula", cedula, "email", email,
+                        "rol", "PROFESOR", "clave", "Secreta123"))
+                .exchange();
+    }
+}
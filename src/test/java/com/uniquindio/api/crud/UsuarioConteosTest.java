@@ -0,0 +1,84 @@
+package com.uniquindio.api.crud;
+
+import com.uniquindio.api.crud.dto.UsuarioConteoDTO;
+import com.uniquindio.api.crud.services.UsuarioConteos;
+import com.uniquindio.api.crud.services.UsuarioService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conteos por rol y clase ajustados por las escrituras de UsuarioService, también para usuarios que el
+ * índice de autocompletado no conoce (aquí, insertados directamente en la tabla).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "usuarios.reactivo.puerto=0")
+@ActiveProfiles("embedded")
+class UsuarioConteosTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioConteos usuarioConteos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void lasEscriturasAjustanLosConteosDeUsuariosQueElIndiceNoConoce() {
+        long base = System.nanoTime() % 1_000_000_000L;
+        String clase = "Conteos " + base;
+        Long profesor = insertar(base, "PROFESOR", clase);
+        Long estudiante = insertar(base + 1, "ESTUDIANTE", clase);
+        Long otro = insertar(base + 2, "ESTUDIANTE", clase);
+
+        // La reconciliación suma los usuarios que no pasaron por el servicio
+        usuarioConteos.reconciliar();
+        long total = usuarioConteos.total();
+        assertThat(cantidad("PROFESOR", clase)).isEqualTo(1);
+        assertThat(cantidad("ESTUDIANTE", clase)).isEqualTo(2);
+
+        usuarioService.deleteById(profesor);
+        assertThat(cantidad("PROFESOR", clase)).isZero();
+        assertThat(usuarioConteos.total()).isEqualTo(total - 1);
+
+        usuarioService.partialUpdateUsuario(estudiante, Map.of("rol", "PROFESOR"), false);
+        assertThat(cantidad("PROFESOR", clase)).isEqualTo(1);
+        assertThat(cantidad("ESTUDIANTE", clase)).isEqualTo(1);
+        assertThat(usuarioConteos.total()).isEqualTo(total - 1);
+
+        usuarioService.deleteAllById(List.of(otro));
+        assertThat(cantidad("ESTUDIANTE", clase)).isZero();
+
+        usuarioService.deleteByClase(clase);
+        assertThat(cantidad("PROFESOR", clase)).isZero();
+        assertThat(usuarioConteos.total()).isEqualTo(total - 3);
+
+        // Con los conteos ya iguales a la base, la reconciliación no cambia nada
+        usuarioConteos.reconciliar();
+        assertThat(usuarioConteos.total()).isEqualTo(total - 3);
+    }
+
+    private Long insertar(long cedula, String rol, String clase) {
+        Long id = jdbcTemplate.queryForObject("select next value for usuarios_seq", Long.class);
+        jdbcTemplate.update("""
+                        insert into usuarios (id, nombre, cedula, email, rol, clase, clave, version)
+                        values (?, 'Usuario Contado', ?, ?, ?, ?, 'x', 0)""",
+                id, Long.toString(cedula), "contado" + cedula + "@uniquindio.edu.co", rol, clase);
+        return id;
+    }
+
+    private long cantidad(String rol, String clase) {
+        return usuarioConteos.resumen().grupos().stream()
+                .filter(grupo -> rol.equals(grupo.rol()) && clase.equals(grupo.clase()))
+                .mapToLong(UsuarioConteoDTO::cantidad)
+                .sum();
+    }
+}
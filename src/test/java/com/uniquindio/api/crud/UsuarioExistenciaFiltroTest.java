@@ -0,0 +1,82 @@
+package com.uniquindio.api.crud;
+
+import com.uniquindio.api.crud.dto.UsuarioBatchResultadoDTO;
+import com.uniquindio.api.crud.dto.UsuarioDTO;
+import com.uniquindio.api.crud.services.UsuarioExistenciaFiltro;
+import com.uniquindio.api.crud.services.UsuarioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Un "quizás" del filtro de existencia no rechaza la fila: la base de datos decide. Un falso positivo
+ * se crea y se cuenta en {@code usuarios.filtro.falsos.positivos}; un duplicado real recibe 409 de la
+ * consulta, antes de llegar a la restricción única.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "usuarios.reactivo.puerto=0")
+@ActiveProfiles("embedded")
+class UsuarioExistenciaFiltroTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioExistenciaFiltro existenciaFiltro;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void positivoDelFiltroSeConfirmaConLaBaseDeDatos() {
+        long base = System.nanoTime() % 1_000_000_000L;
+        String falsoPositivo = Long.toString(base);
+        String registrada = Long.toString(base + 1);
+        String nueva = Long.toString(base + 2);
+
+        // En el filtro pero no en la tabla, como una cédula de un usuario eliminado
+        existenciaFiltro.registrar(falsoPositivo, null);
+        usuarioService.importarBloque(List.of(usuario(registrada)), confirmados -> { });
+        assertThat(existenciaFiltro.puedeExistir(falsoPositivo, correo(falsoPositivo))).isTrue();
+        assertThat(existenciaFiltro.puedeExistir(registrada, correo("otro" + registrada))).isTrue();
+
+        double falsosAntes = falsosPositivos();
+        UsuarioBatchResultadoDTO[] resultados = usuarioService.importarBloque(List.of(
+                usuario(falsoPositivo),
+                new UsuarioDTO(null, "Usuario Repetido", registrada, correo("otro" + registrada),
+                        "ESTUDIANTE", null, "Secreta123"),
+                usuario(nueva)), confirmados -> { });
+
+        assertThat(Arrays.stream(resultados).map(UsuarioBatchResultadoDTO::status)).containsExactly(201, 409, 201);
+        assertThat(resultados[1].mensaje()).isEqualTo("La cédula ya está registrada");
+        assertThat(falsosPositivos() - falsosAntes).isEqualTo(1);
+        assertThat(usuarios(falsoPositivo)).isOne();
+        assertThat(usuarios(registrada)).isOne();
+    }
+
+    private double falsosPositivos() {
+        return registry.get("usuarios.filtro.falsos.positivos").counter().count();
+    }
+
+    private int usuarios(String cedula) {
+        return jdbcTemplate.queryForObject("select count(*) from usuarios where cedula = ?", Integer.class, cedula);
+    }
+
+    private static UsuarioDTO usuario(String cedula) {
+        return new UsuarioDTO(null, "Usuario Filtrado", cedula, correo(cedula), "ESTUDIANTE", null, "Secreta123");
+    }
+
+    private static String correo(String cedula) {
+        return "filtro" + cedula + "@uniquindio.edu.co";
+    }
+}
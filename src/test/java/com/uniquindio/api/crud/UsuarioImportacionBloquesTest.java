@@ -0,0 +1,77 @@
+package com.uniquindio.api.crud;
+
+import com.uniquindio.api.crud.dto.UsuarioBatchResultadoDTO;
+import com.uniquindio.api.crud.dto.UsuarioDTO;
+import com.uniquindio.api.crud.services.UsuarioService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bloques de una importación que chocan con una cédula insertada por otra escritura (fuera del filtro de
+ * existencia, así el choque llega a la base): las filas y el avance se confirman juntos, y si la
+ * importación se cae antes de confirmar el avance, al reanudarla el bloque no queda repetido.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "usuarios.reactivo.puerto=0")
+@ActiveProfiles("embedded")
+class UsuarioImportacionBloquesTest {
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bloqueConConflictoSeConfirmaConElAvanceYSeReanudaSinRepetir() {
+        long base = System.nanoTime() % 1_000_000_000L;
+        String existente = Long.toString(base);
+        jdbcTemplate.update("""
+                        insert into usuarios (id, nombre, cedula, email, rol, clave, version)
+                        values (next value for usuarios_seq, 'Usuario Existente', ?, ?, 'PROFESOR', 'x', 0)""",
+                existente, "existente" + base + "@uniquindio.edu.co");
+
+        List<UsuarioDTO> bloque = List.of(
+                usuario(Long.toString(base + 1)),
+                usuario(existente),
+                usuario(Long.toString(base + 2)));
+
+        // Caída al confirmar el avance: el bloque entero se revierte, también las filas sin conflicto
+        assertThatThrownBy(() -> usuarioService.importarBloque(bloque, confirmados -> {
+            throw new IllegalStateException("caída antes de guardar el avance");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(usuarios(base + 1)).isZero();
+        assertThat(usuarios(base + 2)).isZero();
+
+        // Al reanudar, el avance ve las filas creadas en su misma transacción
+        AtomicReference<Integer> vistasAlConfirmar = new AtomicReference<>();
+        UsuarioBatchResultadoDTO[] resultados = usuarioService.importarBloque(bloque,
+                confirmados -> vistasAlConfirmar.set(usuarios(base + 1) + usuarios(base + 2)));
+
+        assertThat(Arrays.stream(resultados).map(UsuarioBatchResultadoDTO::status)).containsExactly(201, 409, 201);
+        assertThat(resultados[1].mensaje()).isEqualTo("La cédula ya está registrada");
+        assertThat(vistasAlConfirmar.get()).isEqualTo(2);
+        assertThat(usuarios(base + 1)).isOne();
+        assertThat(usuarios(base + 2)).isOne();
+        assertThat(usuarios(base)).isOne();
+    }
+
+    private static UsuarioDTO usuario(String cedula) {
+        return new UsuarioDTO(null, "Usuario Importado", cedula, "importado" + cedula + "@uniquindio.edu.co",
+                "ESTUDIANTE", null, "Secreta123");
+    }
+
+    private int usuarios(long cedula) {
+        return jdbcTemplate.queryForObject("select count(*) from usuarios where cedula = ?", Integer.class,
+                Long.toString(cedula));
+    }
+}
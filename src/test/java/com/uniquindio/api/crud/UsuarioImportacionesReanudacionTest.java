@@ -0,0 +1,122 @@
+package com.uniquindio.api.crud;
+
+import com.uniquindio.api.crud.model.EstadoImportacion;
+import com.uniquindio.api.crud.model.Importacion;
+import com.uniquindio.api.crud.repository.ImportacionRepository;
+import com.uniquindio.api.crud.services.UsuarioImportaciones;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reanudación de importaciones con varias instancias: solo se retoman las que dejó esta instancia o
+ * las de una instancia cuyo arriendo venció, desde la última fila confirmada.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "usuarios.reactivo.puerto=0")
+@ActiveProfiles("embedded")
+class UsuarioImportacionesReanudacionTest {
+
+    @Autowired
+    private UsuarioImportaciones usuarioImportaciones;
+
+    @Autowired
+    private ImportacionRepository importacionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${usuarios.importacion.directorio}")
+    private Path directorio;
+
+    @Test
+    void noTocaLaImportacionQueOtraInstanciaTieneTomada() {
+        Long id = interrumpida("otra-instancia", Instant.now().plusSeconds(60), directorio.resolve("en-otra-instancia.csv"), 0);
+
+        usuarioImportaciones.reanudarInterrumpidas();
+
+        Importacion importacion = importacionRepository.findById(id).orElseThrow();
+        assertThat(importacion.getEstado()).isEqualTo(EstadoImportacion.EN_CURSO);
+        assertThat(importacion.getNodo()).isEqualTo("otra-instancia");
+    }
+
+    @Test
+    void marcaFallidaLaDeUnaInstanciaCaidaSiElArchivoNoEstaAqui() {
+        Long id = interrumpida("instancia-caida", Instant.now().minusSeconds(1), directorio.resolve("no-existe.csv"), 0);
+
+        usuarioImportaciones.reanudarInterrumpidas();
+
+        Importacion importacion = importacionRepository.findById(id).orElseThrow();
+        assertThat(importacion.getEstado()).isEqualTo(EstadoImportacion.FALLIDA);
+        assertThat(importacion.getMensaje()).isEqualTo("El archivo de la importación ya no existe");
+        assertThat(importacion.getNodo()).isNull();
+    }
+
+    @Test
+    void retomaLaDeUnaInstanciaCaidaDesdeLaUltimaFilaConfirmada() throws Exception {
+        long base = System.nanoTime() % 1_000_000_000L;
+        Path ruta = directorio.resolve(UUID.randomUUID() + ".csv");
+        Files.writeString(ruta, "nombre,cedula,email,rol,clave\r\n" +
+                fila(base) + fila(base + 1) + fila(base + 2));
+        // La instancia caída ya había confirmado la primera fila
+        Long id = interrumpida("instancia-caida", Instant.now().minusSeconds(1), ruta, 1);
+
+        usuarioImportaciones.reanudarInterrumpidas();
+
+        Importacion importacion = esperarFin(id);
+        assertThat(importacion.getEstado()).isEqualTo(EstadoImportacion.COMPLETADA);
+        assertThat(importacion.getFilasProcesadas()).isEqualTo(3);
+        assertThat(importacion.getCreados()).isEqualTo(3);
+        assertThat(importacion.getNodo()).isNull();
+        assertThat(usuarios(base)).isZero();
+        assertThat(usuarios(base + 1)).isOne();
+        assertThat(usuarios(base + 2)).isOne();
+        assertThat(ruta).doesNotExist();
+    }
+
+    private Long interrumpida(String nodo, Instant arriendoHasta, Path ruta, long filasProcesadas) {
+        Importacion importacion = new Importacion();
+        importacion.setArchivo(ruta.getFileName().toString());
+        importacion.setRuta(ruta.toString());
+        importacion.setEstado(EstadoImportacion.EN_CURSO);
+        importacion.setNodo(nodo);
+        importacion.setArriendoHasta(arriendoHasta);
+        importacion.setFilasProcesadas(filasProcesadas);
+        importacion.setCreados(filasProcesadas);
+        importacion.setCreada(Instant.now());
+        importacion.setActualizada(importacion.getCreada());
+        return importacionRepository.save(importacion).getId();
+    }
+
+    // Hasta que termina y libera el arriendo, que se libera después de guardar el estado final
+    private Importacion esperarFin(Long id) throws InterruptedException {
+        for (int intento = 0; intento < 100; intento++) {
+            Importacion importacion = importacionRepository.findById(id).orElseThrow();
+            if (importacion.getEstado() != EstadoImportacion.PENDIENTE && importacion.getEstado() != EstadoImportacion.EN_CURSO
+                    && importacion.getNodo() == null) {
+                return importacion;
+            }
+            Thread.sleep(100);
+        }
+        return importacionRepository.findById(id).orElseThrow();
+    }
+
+    private static String fila(long cedula) {
+        return "Usuario Reanudado," + cedula + ",reanudado" + cedula + "@uniquindio.edu.co,ESTUDIANTE,Secreta123\r\n";
+    }
+
+    private int usuarios(long cedula) {
+        return jdbcTemplate.queryForObject("select count(*) from usuarios where cedula = ?", Integer.class,
+                Long.toString(cedula));
+    }
+}
@@ -0,0 +1,99 @@
+package com.uniquindio.api.crud;
+
+import com.uniquindio.api.crud.dto.UsuarioResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.DisposableServer;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lecturas por el servidor reactivo (Reactor Netty y R2DBC) sobre la misma base H2 que usa JPA: las filas
+ * insertadas por JDBC se leen en el puerto reactivo con las mismas rutas que el controlador MVC.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "usuarios.reactivo.puerto=0")
+@ActiveProfiles("embedded")
+class UsuarioReactivoApiTest {
+
+    @Autowired
+    private DisposableServer servidorReactivo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    private WebTestClient cliente;
+
+    @BeforeEach
+    void conectar() {
+        cliente = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + servidorReactivo.port() + contextPath)
+                .build();
+    }
+
+    @Test
+    void obtenerYListarPorElPuertoReactivo() {
+        long primero = insertar("Sofía Reactiva");
+        long segundo = insertar("Tomás Reactivo");
+
+        cliente.get().uri("/api/usuarios/{id}", primero)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(primero)
+                .jsonPath("$.nombre").isEqualTo("Sofía Reactiva");
+
+        cliente.get().uri("/api/usuarios/{id}", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404);
+
+        List<UsuarioResponseDTO> pagina = cliente.get().uri("/api/usuarios?desde={desde}&size=2", primero - 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(UsuarioResponseDTO.class).returnResult().getResponseBody();
+        assertThat(pagina).extracting(UsuarioResponseDTO::id).containsExactly(primero, segundo);
+
+        List<UsuarioResponseDTO> lineas = cliente.get().uri("/api/usuarios?desde={desde}&size=1", primero - 1)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(UsuarioResponseDTO.class).getResponseBody().collectList().block();
+        assertThat(lineas).extracting(UsuarioResponseDTO::nombre).containsExactly("Sofía Reactiva");
+    }
+
+    @Test
+    void tamanoFueraDeRangoSeRechaza() {
+        for (String size : List.of("0", "-1", "1001", "diez")) {
+            cliente.get().uri("/api/usuarios?size={size}", size)
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                    .expectBody()
+                    .jsonPath("$.status").isEqualTo(400);
+        }
+    }
+
+    private long insertar(String nombre) {
+        long id = jdbcTemplate.queryForObject("select next value for usuarios_seq", Long.class);
+        String cedula = Long.toString(System.nanoTime() % 1_000_000_000L);
+        jdbcTemplate.update("""
+                        insert into usuarios (id, nombre, cedula, email, rol, clave, version)
+                        values (?, ?, ?, ?, 'ESTUDIANTE', 'x', 0)""",
+                id, nombre, cedula, "reactivo" + cedula + "@uniquindio.edu.co");
+        return id;
+    }
+}
@@ -0,0 +1,70 @@
+package com.uniquindio.api.crud.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CuboFichasTest {
+
+    private final AtomicLong reloj = new AtomicLong(1_000_000L);
+
+    // Ráfaga de 5 y 10 fichas por segundo: una ficha cada 100 ms
+    private final CuboFichas cubo = new CuboFichas(5, 10, reloj::get);
+
+    @Test
+    void rafagaCompletaYLuegoEsperaLaSiguienteFicha() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(cubo.tomar()).isZero();
+        }
+        assertThat(cubo.tomar()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(100), within(1L));
+
+        avanzar(40);
+        assertThat(cubo.tomar()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(60), within(1L));
+    }
+
+    @Test
+    void esperarLoIndicadoAlcanzaParaLaSiguienteFicha() {
+        for (int i = 0; i < 5; i++) {
+            cubo.tomar();
+        }
+        for (int i = 0; i < 20; i++) {
+            long espera = cubo.tomar();
+            assertThat(espera).isPositive();
+            reloj.addAndGet(espera);
+            assertThat(cubo.tomar()).isZero();
+        }
+    }
+
+    @Test
+    void laRecargaNoSuperaLaCapacidad() {
+        cubo.tomar();
+        avanzar(60_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(cubo.tomar()).isZero();
+        }
+        assertThat(cubo.tomar()).isPositive();
+    }
+
+    @Test
+    void recargaProporcionalAlTiempo() {
+        for (int i = 0; i < 5; i++) {
+            cubo.tomar();
+        }
+        avanzar(350);
+
+        // 3,5 fichas: tres solicitudes pasan y la cuarta espera el medio intervalo que falta
+        for (int i = 0; i < 3; i++) {
+            assertThat(cubo.tomar()).isZero();
+        }
+        assertThat(cubo.tomar()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(50), within(1L));
+    }
+
+    private void avanzar(long milisegundos) {
+        reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(milisegundos));
+    }
+}
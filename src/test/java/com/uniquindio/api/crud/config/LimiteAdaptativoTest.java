@@ -0,0 +1,130 @@
+package com.uniquindio.api.crud.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimiteAdaptativoTest {
+
+    private static final long UN_MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // Límite inicial 10, entre 2 y 20, tolerancia 1,5
+    private final LimiteAdaptativo limite = new LimiteAdaptativo("lecturas",
+            new AdmisionProperties.Presupuesto(null, null, 10, 2, 20, 1.5), registry);
+
+    @Test
+    void admiteHastaElLimiteYLiberaLugares() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limite.intentar()).isTrue();
+        }
+        assertThat(limite.intentar()).isFalse();
+        assertThat(enCurso()).isEqualTo(10);
+
+        limite.liberar(-1);
+        assertThat(limite.intentar()).isTrue();
+    }
+
+    @Test
+    void conLatenciaEstableSubeDeAPocoHastaElMaximo() {
+        ronda(UN_MS);
+        // Con la latencia igual a la habitual el gradiente es 1 y cada ajuste suma 0,2·√estimado:
+        // 10 → 10,63 → 11,28 → 11,96 → 12,65, y la quinta liberación ya ocurre con menos de la mitad en uso
+        assertThat(limiteActual()).isEqualTo(12);
+
+        int anterior = limiteActual();
+        for (int i = 0; i < 20; i++) {
+            ronda(UN_MS);
+            assertThat(limiteActual()).isGreaterThanOrEqualTo(anterior);
+            anterior = limiteActual();
+        }
+        assertThat(limiteActual()).isEqualTo(20);
+    }
+
+    @Test
+    void siLaLatenciaCreceBajaHastaDondeSoloQuedaLaHolgura() {
+        for (int i = 0; i < 5; i++) {
+            ronda(UN_MS);
+        }
+        int antes = limiteActual();
+
+        // Latencia 20 veces la habitual: el gradiente queda en su mínimo de 0,5
+        ronda(20 * UN_MS);
+        assertThat(limiteActual()).isLessThan(antes);
+        // Con el gradiente en 0,5 el estimado converge a 4, donde 0,5·e + √e = e
+        for (int i = 0; i < 30; i++) {
+            ronda(20 * UN_MS);
+        }
+        assertThat(limiteActual()).isEqualTo(4);
+    }
+
+    @Test
+    void elLimiteNoBajaDelMinimo() {
+        LimiteAdaptativo conMinimo = new LimiteAdaptativo("escrituras",
+                new AdmisionProperties.Presupuesto(null, null, 10, 6, 20, 1.5), registry);
+        for (int i = 0; i < 30; i++) {
+            int ocupados = 0;
+            while (conMinimo.intentar()) {
+                ocupados++;
+            }
+            for (int j = 0; j < ocupados; j++) {
+                conMinimo.liberar(i < 5 ? UN_MS : 20 * UN_MS);
+            }
+        }
+        assertThat(registry.get("usuarios.admision.limite").tag("clase", "escrituras").gauge().value()).isEqualTo(6);
+    }
+
+    @Test
+    void latenciaToleradaNoBajaElLimite() {
+        ronda(UN_MS);
+        int antes = limiteActual();
+
+        // 1,4 veces la habitual está dentro de la tolerancia de 1,5
+        for (int i = 0; i < 5; i++) {
+            ronda(UN_MS * 14 / 10);
+        }
+        assertThat(limiteActual()).isGreaterThanOrEqualTo(antes);
+    }
+
+    @Test
+    void conPocoUsoLaLatenciaNoAjustaElLimite() {
+        limite.intentar();
+        limite.liberar(UN_MS);
+        for (int i = 0; i < 50; i++) {
+            limite.intentar();
+            limite.liberar(100 * UN_MS);
+        }
+        assertThat(limiteActual()).isEqualTo(10);
+    }
+
+    @Test
+    void latenciaNegativaNoAjustaElLimite() {
+        for (int i = 0; i < 5; i++) {
+            ronda(-1);
+        }
+        assertThat(limiteActual()).isEqualTo(10);
+    }
+
+    // Ocupa todos los lugares y los libera con la misma latencia
+    private void ronda(long latenciaNanos) {
+        int ocupados = 0;
+        while (limite.intentar()) {
+            ocupados++;
+        }
+        for (int i = 0; i < ocupados; i++) {
+            limite.liberar(latenciaNanos);
+        }
+    }
+
+    private int limiteActual() {
+        return (int) registry.get("usuarios.admision.limite").tag("clase", "lecturas").gauge().value();
+    }
+
+    private int enCurso() {
+        return (int) registry.get("usuarios.admision.en.curso").tag("clase", "lecturas").gauge().value();
+    }
+}
@@ -0,0 +1,59 @@
+package com.uniquindio.api.crud.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FiltroBloomTest {
+
+    private static final int CAPACIDAD = 20_000;
+    private static final double FPP = 0.01;
+
+    @Test
+    void sinFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(CAPACIDAD, FPP);
+        IntStream.range(0, CAPACIDAD).forEach(i -> filtro.agregar(cedula(i)));
+
+        assertThat(IntStream.range(0, CAPACIDAD).allMatch(i -> filtro.puedeContener(cedula(i)))).isTrue();
+    }
+
+    @Test
+    void tasaDeFalsosPositivosCercanaALaConfigurada() {
+        FiltroBloom filtro = new FiltroBloom(CAPACIDAD, FPP);
+        IntStream.range(0, CAPACIDAD).forEach(i -> filtro.agregar(correo(i)));
+
+        int ausentes = 200_000;
+        long falsosPositivos = IntStream.range(CAPACIDAD, CAPACIDAD + ausentes)
+                .filter(i -> filtro.puedeContener(correo(i)))
+                .count();
+        double tasa = (double) falsosPositivos / ausentes;
+
+        // Lleno hasta su capacidad, la tasa medida y la estimada por los bits encendidos rondan la configurada
+        assertThat(tasa).isCloseTo(FPP, within(FPP / 2));
+        assertThat(filtro.fppEstimada()).isCloseTo(FPP, within(FPP / 2));
+    }
+
+    @Test
+    void vacioRespondeQueNoYLaEstimacionCreceConElUso() {
+        FiltroBloom filtro = new FiltroBloom(CAPACIDAD, FPP);
+        assertThat(filtro.puedeContener(cedula(1))).isFalse();
+        assertThat(filtro.fppEstimada()).isZero();
+
+        IntStream.range(0, CAPACIDAD / 2).forEach(i -> filtro.agregar(cedula(i)));
+        double mitad = filtro.fppEstimada();
+        IntStream.range(CAPACIDAD / 2, CAPACIDAD).forEach(i -> filtro.agregar(cedula(i)));
+
+        assertThat(mitad).isPositive().isLessThan(filtro.fppEstimada());
+    }
+
+    private static String cedula(int i) {
+        return Integer.toString(1_000_000_000 + i);
+    }
+
+    private static String correo(int i) {
+        return "usuario" + i + "@uniquindio.edu.co";
+    }
+}
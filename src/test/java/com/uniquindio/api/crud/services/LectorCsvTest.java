@@ -0,0 +1,52 @@
+package com.uniquindio.api.crud.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LectorCsvTest {
+
+    @Test
+    void camposEntreComillasConComasYSaltosDeLinea() throws IOException {
+        assertThat(leer("nombre,clase\n\"Pérez, Juan\",\"Programación\nI\"\n"))
+                .containsExactly(List.of("nombre", "clase"), List.of("Pérez, Juan", "Programación\nI"));
+    }
+
+    @Test
+    void comillasDobladasDentroDeUnCampo() throws IOException {
+        assertThat(leer("\"dice \"\"hola\"\"\",\"\"\"\",\"\"\n"))
+                .containsExactly(List.of("dice \"hola\"", "\"", ""));
+    }
+
+    @Test
+    void finalesDeLineaCrlfYRegistroFinalSinSalto() throws IOException {
+        assertThat(leer("a,b\r\n\"c\",d\r\ne,\"f\""))
+                .containsExactly(List.of("a", "b"), List.of("c", "d"), List.of("e", "f"));
+    }
+
+    @Test
+    void ignoraElBomInicialYLasLineasVacias() throws IOException {
+        assertThat(leer("\uFEFFnombre,cedula\r\n\r\n\nAna,1\n\n"))
+                .containsExactly(List.of("nombre", "cedula"), List.of("Ana", "1"));
+    }
+
+    @Test
+    void camposVaciosSeConservan() throws IOException {
+        assertThat(leer(",a,\n")).containsExactly(List.of("", "a", ""));
+    }
+
+    private static List<List<String>> leer(String contenido) throws IOException {
+        LectorCsv lector = new LectorCsv(new StringReader(contenido));
+        List<List<String>> registros = new ArrayList<>();
+        List<String> registro;
+        while ((registro = lector.siguiente()) != null) {
+            registros.add(registro);
+        }
+        return registros;
+    }
+}
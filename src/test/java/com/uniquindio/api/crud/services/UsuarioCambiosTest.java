@@ -0,0 +1,175 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.dto.UsuarioCambioDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsuarioCambiosTest {
+
+    private static final Pattern ID = Pattern.compile("id:(\\S+)");
+    private static final Pattern NOMBRE = Pattern.compile("event:(\\S+)");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<EmitterDePrueba> emitters = new ArrayList<>();
+
+    // Búfer de 10 eventos; un suscriptor más de 5 eventos atrás se desconecta
+    private final UsuarioCambios cambios = new UsuarioCambios(registry, 10, 5, 10, Duration.ofMinutes(1), Duration.ofMinutes(1)) {
+        @Override
+        SseEmitter nuevoEmitter(long duracionMs) {
+            EmitterDePrueba emitter = new EmitterDePrueba();
+            emitters.add(emitter);
+            return emitter;
+        }
+    };
+
+    @AfterEach
+    void cerrar() {
+        emitters.forEach(emitter -> emitter.pausa.countDown());
+        cambios.cerrar();
+    }
+
+    @Test
+    void reconexionConLastEventIdContinuaDondeSeQuedo() throws Exception {
+        EmitterDePrueba primero = suscribir(null);
+        publicar(3);
+        List<String> recibidos = primero.eventos(3);
+        String segundo = id(recibidos.get(1));
+        assertThat(recibidos).extracting(UsuarioCambiosTest::nombre).containsOnly("ELIMINADO");
+
+        // Mientras estuvo desconectado se publicaron dos más: recibe desde el tercero, en orden
+        publicar(2);
+        EmitterDePrueba reconectado = suscribir(segundo);
+        List<String> pendientes = reconectado.eventos(3);
+        String epoca = segundo.substring(0, segundo.indexOf('-'));
+        assertThat(pendientes).extracting(UsuarioCambiosTest::id)
+                .containsExactly(epoca + "-3", epoca + "-4", epoca + "-5");
+    }
+
+    @Test
+    void idDeOtraEjecucionODemasiadoAtrasadoReinicia() throws Exception {
+        publicar(8);
+
+        EmitterDePrueba otraEjecucion = suscribir("123-1");
+        String reinicio = otraEjecucion.eventos(1).get(0);
+        assertThat(nombre(reinicio)).isEqualTo(UsuarioCambios.REINICIO);
+        String epoca = id(reinicio).substring(0, id(reinicio).indexOf('-'));
+        assertThat(id(reinicio)).isEqualTo(epoca + "-8");
+
+        // 7 eventos atrás supera el retraso máximo de 5
+        EmitterDePrueba atrasado = suscribir(epoca + "-1");
+        assertThat(nombre(atrasado.eventos(1).get(0))).isEqualTo(UsuarioCambios.REINICIO);
+
+        // Dentro del retraso máximo continúa sin reiniciar
+        EmitterDePrueba reciente = suscribir(epoca + "-4");
+        assertThat(reciente.eventos(4)).extracting(UsuarioCambiosTest::id)
+                .containsExactly(epoca + "-5", epoca + "-6", epoca + "-7", epoca + "-8");
+    }
+
+    @Test
+    void suscriptorLentoSeDesconectaSinFrenarLasPublicaciones() throws Exception {
+        EmitterDePrueba lento = suscribir(null);
+        EmitterDePrueba normal = suscribir(null);
+        lento.pausar();
+
+        // El hilo del lento queda detenido enviando el primero; publicar no lo espera
+        publicar(1);
+        assertThat(lento.enEnvio.await(5, TimeUnit.SECONDS)).isTrue();
+        normal.eventos(1);
+        // El otro suscriptor sigue el ritmo: recibe cada evento antes del siguiente
+        for (int i = 0; i < 9; i++) {
+            publicar(1);
+            normal.eventos(1);
+        }
+
+        lento.pausa.countDown();
+        assertThat(lento.completado.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(registry.get("usuarios.cambios.descartados").counter().count()).isOne();
+        assertThat(normal.completado.getCount()).isOne();
+    }
+
+    private EmitterDePrueba suscribir(String ultimoId) {
+        return (EmitterDePrueba) cambios.suscribir(ultimoId);
+    }
+
+    private void publicar(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            cambios.publicar(UsuarioCambioDTO.eliminado((long) i));
+        }
+    }
+
+    private static String id(String evento) {
+        Matcher matcher = ID.matcher(evento);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String nombre(String evento) {
+        Matcher matcher = NOMBRE.matcher(evento);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Guarda el texto de cada evento en vez de escribirlo en una respuesta. Con pausa, el envío de un
+     * evento espera a que se libere, como ante un cliente que no lee.
+     */
+    private static final class EmitterDePrueba extends SseEmitter {
+
+        final BlockingQueue<String> enviados = new LinkedBlockingQueue<>();
+        final CountDownLatch completado = new CountDownLatch(1);
+        final CountDownLatch enEnvio = new CountDownLatch(1);
+        final CountDownLatch pausa = new CountDownLatch(1);
+        private volatile boolean pausado;
+
+        void pausar() {
+            pausado = true;
+        }
+
+        @Override
+        public void send(SseEventBuilder evento) {
+            String texto = evento.build().stream()
+                    .map(dato -> String.valueOf(dato.getData()))
+                    .collect(Collectors.joining());
+            if (pausado && texto.contains("id:")) {
+                enEnvio.countDown();
+                try {
+                    pausa.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            enviados.add(texto);
+        }
+
+        @Override
+        public void complete() {
+            completado.countDown();
+        }
+
+        // Los siguientes eventos con ID, sin los comentarios de conexión y latido
+        List<String> eventos(int cantidad) throws InterruptedException {
+            List<String> eventos = new ArrayList<>();
+            while (eventos.size() < cantidad) {
+                String texto = enviados.poll(5, TimeUnit.SECONDS);
+                assertThat(texto).as("evento %d de %d", eventos.size() + 1, cantidad).isNotNull();
+                if (texto.contains("id:")) {
+                    eventos.add(texto);
+                }
+            }
+            return eventos;
+        }
+    }
+}
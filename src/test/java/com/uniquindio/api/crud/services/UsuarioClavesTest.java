@@ -0,0 +1,47 @@
+package com.uniquindio.api.crud.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsuarioClavesTest {
+
+    // Un hilo, cola de 4 y lotes de a 2: un lote más largo que la cola solo pasa si se limita solo
+    private final UsuarioClaves claves = new UsuarioClaves(new SimpleMeterRegistry(), 4, 1, 4, 2, Duration.ofSeconds(10));
+
+    @AfterEach
+    void cerrar() {
+        claves.cerrar();
+    }
+
+    @Test
+    void loteMasLargoQueLaColaNoLaLlena() throws Exception {
+        CompletableFuture<List<String>> lote = CompletableFuture.supplyAsync(
+                () -> claves.hashear(Collections.nCopies(20, "Secreta123")));
+
+        // Mientras el lote avanza, una creación individual sigue encontrando lugar en la cola
+        String individual = claves.hashear("Individual1");
+
+        List<String> hashes = lote.get();
+        assertThat(hashes).hasSize(20).allSatisfy(hash -> assertThat(claves.verificar("Secreta123", hash)).isTrue());
+        assertThat(claves.verificar("Individual1", individual)).isTrue();
+    }
+
+    @Test
+    void claveEnTextoPlanoSeComparaYRequiereRehash() {
+        assertThat(claves.verificar("Secreta123", "Secreta123")).isTrue();
+        assertThat(claves.verificar("Secreta124", "Secreta123")).isFalse();
+        assertThat(claves.verificar("Secreta12", "Secreta123")).isFalse();
+        assertThat(claves.verificar(null, "Secreta123")).isFalse();
+        assertThat(claves.verificar("ñandú", "ñandú")).isTrue();
+        assertThat(claves.requiereRehash("Secreta123")).isTrue();
+        assertThat(claves.requiereRehash(claves.hashear("Secreta123"))).isFalse();
+    }
+}
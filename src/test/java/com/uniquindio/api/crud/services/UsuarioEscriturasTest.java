@@ -0,0 +1,141 @@
+package com.uniquindio.api.crud.services;
+
+import com.uniquindio.api.crud.model.RolUsuario;
+import com.uniquindio.api.crud.model.Usuario;
+import com.uniquindio.api.crud.repository.UsuarioRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UsuarioEscriturasTest {
+
+    private final UsuarioRepository repositorio = mock(UsuarioRepository.class);
+    private final UsuarioExistenciaFiltro filtro = mock(UsuarioExistenciaFiltro.class);
+    private final UsuarioIndice indice = mock(UsuarioIndice.class);
+    private final UsuarioConteos conteos = mock(UsuarioConteos.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService solicitudes = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Ventana amplia: las escrituras enviadas juntas caen en el mismo grupo
+    private final UsuarioEscrituras escrituras = new UsuarioEscrituras(repositorio, filtro, indice, conteos,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), registry,
+            64, Duration.ofMillis(500), 100, Duration.ofSeconds(10));
+
+    @AfterEach
+    void cerrar() throws InterruptedException {
+        escrituras.cerrar();
+        solicitudes.shutdown();
+    }
+
+    @Test
+    void escriturasSimultaneasSeConfirmanEnUnGrupoYCombinanLasDelMismoId() throws Exception {
+        when(repositorio.actualizarCampos(anyLong(), anyMap())).thenReturn(1);
+
+        CompletableFuture<Usuario> primera = crear("111");
+        CompletableFuture<Usuario> segunda = crear("222");
+        CompletableFuture<Integer> nombreYClase = actualizar(7L, Map.of("nombre", "Primero", "clase", "Cálculo"));
+        Thread.sleep(50);
+        CompletableFuture<Integer> nombre = actualizar(7L, Map.of("nombre", "Segundo"));
+
+        assertThat(primera.get().getCedula()).isEqualTo("111");
+        assertThat(segunda.get().getCedula()).isEqualTo("222");
+        assertThat(nombreYClase.get()).isOne();
+        assertThat(nombre.get()).isOne();
+
+        DistributionSummary grupo = registry.get("usuarios.escrituras.grupo").summary();
+        assertThat(grupo.count()).isOne();
+        assertThat(grupo.totalAmount()).isEqualTo(4);
+
+        ArgumentCaptor<List<Usuario>> insertados = ArgumentCaptor.captor();
+        verify(repositorio).saveAll(insertados.capture());
+        assertThat(insertados.getValue()).extracting(Usuario::getCedula).containsExactlyInAnyOrder("111", "222");
+        // Un solo UPDATE con la última escritura de cada campo, y el grupo anterior bloqueado para los conteos
+        verify(repositorio).actualizarCampos(7L, Map.of("nombre", "Segundo", "clase", "Cálculo"));
+        verify(repositorio).bloquearExistentes(List.of(7L));
+        verify(filtro).registrar("111", "111@uniquindio.edu.co");
+        verify(filtro).registrar("222", "222@uniquindio.edu.co");
+    }
+
+    @Test
+    void grupoConConflictoSeRepiteUnaAUnaYSoloLaDuplicadaRecibe409() throws Exception {
+        when(repositorio.saveAll(anyList())).thenThrow(duplicado(Usuario.UK_CEDULA));
+        when(repositorio.saveAndFlush(any(Usuario.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+        when(repositorio.saveAndFlush(argThat(usuario -> usuario != null && "222".equals(usuario.getCedula()))))
+                .thenThrow(duplicado(Usuario.UK_CEDULA));
+        when(repositorio.actualizarCampos(anyLong(), anyMap())).thenReturn(1);
+
+        CompletableFuture<Usuario> valida = crear("111");
+        CompletableFuture<Usuario> duplicada = crear("222");
+        CompletableFuture<Integer> primerCambio = actualizar(7L, Map.of("nombre", "Primero"));
+        CompletableFuture<Integer> segundoCambio = actualizar(7L, Map.of("email", "nuevo@uniquindio.edu.co"));
+
+        assertThat(valida.get().getCedula()).isEqualTo("111");
+        assertThatThrownBy(duplicada::get)
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                    assertThat(e.getReason()).isEqualTo("La cédula ya está registrada");
+                });
+        assertThat(primerCambio.get()).isOne();
+        assertThat(segundoCambio.get()).isOne();
+
+        // Las actualizaciones combinadas se repiten por separado, cada una con sus propios cambios
+        verify(repositorio).actualizarCampos(7L, Map.of("nombre", "Primero"));
+        verify(repositorio).actualizarCampos(7L, Map.of("email", "nuevo@uniquindio.edu.co"));
+        verify(repositorio, times(2)).saveAndFlush(any(Usuario.class));
+        verify(filtro).registrar("111", "111@uniquindio.edu.co");
+        verify(filtro, never()).registrar(eq("222"), any());
+        verify(conteos).agregar(RolUsuario.ESTUDIANTE, "Programación I");
+    }
+
+    private CompletableFuture<Usuario> crear(String cedula) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Usuario " + cedula);
+        usuario.setCedula(cedula);
+        usuario.setEmail(cedula + "@uniquindio.edu.co");
+        usuario.setRol(RolUsuario.ESTUDIANTE);
+        usuario.setClase("Programación I");
+        return CompletableFuture.supplyAsync(() -> escrituras.crear(usuario), solicitudes);
+    }
+
+    private CompletableFuture<Integer> actualizar(Long id, Map<String, Object> cambios) {
+        return CompletableFuture.supplyAsync(() -> escrituras.actualizar(id, cambios), solicitudes);
+    }
+
+    private static DataIntegrityViolationException duplicado(String restriccion) {
+        return new DataIntegrityViolationException("duplicado",
+                new ConstraintViolationException("duplicado", new SQLException("duplicado", "23505"), restriccion));
+    }
+}
@@ -0,0 +1,147 @@
+package com.uniquindio.api.crud.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UsuarioIdempotenciaTest {
+
+    private final UsuarioIdempotencia idempotencia =
+            new UsuarioIdempotencia(new SimpleMeterRegistry(), 100, Duration.ofHours(1), Duration.ofSeconds(5));
+    private final ExecutorService solicitudes = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+
+    @AfterEach
+    void cerrar() {
+        solicitudes.shutdownNow();
+    }
+
+    @Test
+    void repeticionEnCursoEsperaLaRespuestaDeLaPrimera() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<UsuarioIdempotencia.Respuesta<String>> primera = CompletableFuture.supplyAsync(() ->
+                idempotencia.ejecutar("clave-1", "huella", () -> {
+                    enCurso.countDown();
+                    esperar(liberar);
+                    ejecuciones.incrementAndGet();
+                    return "creado";
+                }, valor -> true), solicitudes);
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<UsuarioIdempotencia.Respuesta<String>> repetida = CompletableFuture.supplyAsync(() ->
+                idempotencia.ejecutar("clave-1", "huella", this::contar, valor -> true), solicitudes);
+        Thread.sleep(100);
+        assertThat(repetida).isNotDone();
+        liberar.countDown();
+
+        assertThat(primera.get()).isEqualTo(new UsuarioIdempotencia.Respuesta<>("creado", false));
+        assertThat(repetida.get()).isEqualTo(new UsuarioIdempotencia.Respuesta<>("creado", true));
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void mismaClaveConOtraSolicitudResponde422() {
+        idempotencia.ejecutar("clave-2", UsuarioIdempotencia.huella("{nombre=Ana}"), this::contar, valor -> true);
+
+        assertThatThrownBy(() -> idempotencia.ejecutar("clave-2", UsuarioIdempotencia.huella("{nombre=Luis}"),
+                this::contar, valor -> true))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void errorDeLaPrimeraLlegaALasQueEsperanYLiberaLaClave() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<UsuarioIdempotencia.Respuesta<String>> primera = CompletableFuture.supplyAsync(() ->
+                idempotencia.ejecutar("clave-3", "huella", () -> {
+                    enCurso.countDown();
+                    esperar(liberar);
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "La cédula ya está registrada");
+                }, valor -> true), solicitudes);
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<UsuarioIdempotencia.Respuesta<String>> repetida = CompletableFuture.supplyAsync(() ->
+                idempotencia.ejecutar("clave-3", "huella", this::contar, valor -> true), solicitudes);
+        Thread.sleep(100);
+        liberar.countDown();
+
+        assertThatThrownBy(primera::get).cause().isInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(repetida::get).cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                        assertThat(e.getReason()).isEqualTo("La cédula ya está registrada"));
+
+        // Sin respuesta guardada, un reintento posterior vuelve a ejecutar la operación
+        assertThat(idempotencia.ejecutar("clave-3", "huella", this::contar, valor -> true).repetida()).isFalse();
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void respuestaNoConservadaSeVuelveAEjecutar() {
+        idempotencia.ejecutar("clave-4", "huella", this::contar, valor -> false);
+        UsuarioIdempotencia.Respuesta<String> reintento =
+                idempotencia.ejecutar("clave-4", "huella", this::contar, valor -> true);
+
+        assertThat(reintento.repetida()).isFalse();
+        assertThat(ejecuciones).hasValue(2);
+    }
+
+    @Test
+    void esperaAgotadaResponde409() throws Exception {
+        UsuarioIdempotencia breve =
+                new UsuarioIdempotencia(new SimpleMeterRegistry(), 100, Duration.ofHours(1), Duration.ofMillis(100));
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        solicitudes.submit(() -> breve.ejecutar("clave-5", "huella", () -> {
+            enCurso.countDown();
+            esperar(liberar);
+            return "creado";
+        }, valor -> true));
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThatThrownBy(() -> breve.ejecutar("clave-5", "huella", this::contar, valor -> true))
+                    .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        } finally {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    void claveVaciaOLargaResponde400() {
+        for (String clave : new String[]{" ", "x".repeat(256)}) {
+            assertThatThrownBy(() -> idempotencia.ejecutar(clave, "huella", this::contar, valor -> true))
+                    .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+        assertThat(ejecuciones).hasValue(0);
+    }
+
+    private String contar() {
+        ejecuciones.incrementAndGet();
+        return "creado";
+    }
+
+    private static void esperar(CountDownLatch liberar) {
+        try {
+            liberar.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}